@@ -0,0 +1,131 @@
+package com.milkytea.backend.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 每个请求认证开销的对比基准：原过滤器路径（两次 validateToken 加一次 getUsernameFromToken，
+ * 每次重新生成密钥与解析器）、缓存密钥与解析器后解析一次的 {@link JwtUtil#parse}，
+ * 以及 {@link JwtVerifier} 命中缓存时的摘要加查表，输出每次耗时与分配字节数。
+ * 计时前先确认三种方式解析出相同的用户名与用户 ID，并都拒绝篡改过的令牌。
+ * <p>
+ * 运行：{@code mvn -Pbench compile exec:java -Dexec.mainClass=com.milkytea.backend.security.JwtVerifierBench
+ * -Dexec.args="秒数"}，默认 {@code 3}。
+ */
+public class JwtVerifierBench {
+
+    private static final int WARMUP_ITERATIONS = 20_000;
+
+    /**
+     * 与 application.yml 中开发环境的密钥长度相同。
+     */
+    private static final String SECRET = "change-this-dev-secret-key-change-this-dev-secret-key-change-this";
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 604_800_000L);
+    private final JwtVerifier jwtVerifier = new JwtVerifier(jwtUtil, new SimpleMeterRegistry(), 10_000);
+    private final String token;
+
+    private Object sink;
+
+    private JwtVerifierBench() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", 1L);
+        claims.put("tokenVersion", 0);
+        token = jwtUtil.generateToken("tester", claims);
+    }
+
+    public static void main(String[] args) {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+
+        JwtVerifierBench bench = new JwtVerifierBench();
+        bench.verify();
+        bench.measure("legacy filter path", seconds, () -> bench.sink = bench.legacyFilterPath(bench.token));
+        bench.measure("JwtUtil.parse", seconds, () -> bench.sink = bench.jwtUtil.parse(bench.token));
+        bench.measure("JwtVerifier cache hit", seconds, () -> bench.sink = bench.jwtVerifier.verify(bench.token));
+    }
+
+    private void verify() {
+        JwtPrincipal parsed = jwtUtil.parse(token);
+        JwtPrincipal verified = jwtVerifier.verify(token);
+        JwtPrincipal cached = jwtVerifier.verify(token);
+        String legacyUsername = legacyFilterPath(token);
+        Long legacyUserId = legacyClaims(token).get("userId", Long.class);
+        if (!parsed.equals(verified) || !parsed.equals(cached)
+                || !parsed.getUsername().equals(legacyUsername) || !Objects.equals(parsed.getUserId(), legacyUserId)) {
+            throw new IllegalStateException("解析结果不一致: " + parsed + " " + cached + " " + legacyUsername);
+        }
+
+        // 改动签名中的一个字符（最后一个字符含填充位，改动后可能解码出相同的签名）
+        int position = token.length() - 5;
+        char replaced = token.charAt(position) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, position) + replaced + token.substring(position + 1);
+        if (legacyFilterPath(tampered) != null || jwtVerifier.verify(tampered) != null) {
+            throw new IllegalStateException("篡改的令牌未被拒绝");
+        }
+    }
+
+    private void measure(String name, int seconds, Runnable task) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            task.run();
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        int iterations = 0;
+        while (System.nanoTime() < deadline) {
+            task.run();
+            iterations++;
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%-24s %10.2f us/op %12.0f B/op%n",
+                name, elapsed / 1e3 / iterations, (double) allocated / iterations);
+    }
+
+    // 以下为引入 JwtVerifier 前的实现：JwtAuthFilter 先 validateToken 再 getUsernameFromToken，
+    // 加载用户后再 validateToken 一次，每次解析都重新生成密钥与解析器
+
+    /**
+     * 返回令牌中的用户名，令牌无效时返回 null。
+     */
+    private String legacyFilterPath(String token) {
+        if (!legacyValidateToken(token)) {
+            return null;
+        }
+        String username = legacyClaims(token).getSubject();
+        return legacyValidateToken(token) ? username : null;
+    }
+
+    private boolean legacyValidateToken(String token) {
+        try {
+            legacyClaims(token);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static Key legacySigningKey() {
+        return Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Claims legacyClaims(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(legacySigningKey())
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
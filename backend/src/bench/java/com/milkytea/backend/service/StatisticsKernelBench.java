@@ -0,0 +1,245 @@
+package com.milkytea.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.milkytea.backend.dto.StatisticsDtos;
+import com.milkytea.backend.entity.Brand;
+import com.milkytea.backend.entity.MilkTeaRecord;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * {@link StatisticsKernel} 与原 BigDecimal/Stream 实现的对比基准：对同一批随机记录计算
+ * 基础统计、品牌统计、按天趋势与当月日历，输出每次耗时与分配字节数。
+ * 计时前先比较两种实现的基础统计、趋势与日历序列化结果，不一致时直接失败。
+ * <p>
+ * 运行：{@code mvn -Pbench compile exec:java -Dexec.args="年数 每天杯数 秒数"}，默认 {@code 1 3 3}。
+ */
+public class StatisticsKernelBench {
+
+    private static final int BRANDS = 8;
+    private static final int WARMUP_ITERATIONS = 300;
+
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final List<MilkTeaRecord> records = new ArrayList<>();
+
+    // 与每日汇总表一行对应的基本类型数据，按日期升序，供内核读取
+    private final int[] rowDays;
+    private final long[] rowBrandIds;
+    private final String[] rowBrandNames;
+    private final long[] rowCents;
+    private final long[] rowRatings;
+
+    private Object sink;
+
+    private StatisticsKernelBench(int years, int cupsPerDay) {
+        endDate = LocalDate.of(2026, 10, 18);
+        startDate = endDate.minusYears(years).plusDays(1);
+
+        Random random = new Random(42);
+        Brand[] brands = new Brand[BRANDS];
+        for (int i = 0; i < BRANDS; i++) {
+            brands[i] = new Brand();
+            brands[i].setId((long) i + 1);
+            brands[i].setName("品牌" + i);
+        }
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            for (int k = 0; k < cupsPerDay; k++) {
+                MilkTeaRecord record = new MilkTeaRecord();
+                record.setBrand(brands[random.nextInt(BRANDS)]);
+                record.setConsumeDate(date);
+                record.setPrice(BigDecimal.valueOf(800 + random.nextInt(2200), 2));
+                record.setRating(random.nextInt(11));
+                records.add(record);
+            }
+        }
+
+        int size = records.size();
+        rowDays = new int[size];
+        rowBrandIds = new long[size];
+        rowBrandNames = new String[size];
+        rowCents = new long[size];
+        rowRatings = new long[size];
+        for (int i = 0; i < size; i++) {
+            MilkTeaRecord record = records.get(i);
+            rowDays[i] = (int) record.getConsumeDate().toEpochDay();
+            rowBrandIds[i] = record.getBrand().getId();
+            rowBrandNames[i] = record.getBrand().getName();
+            rowCents[i] = record.getPrice().unscaledValue().longValue();
+            rowRatings[i] = record.getRating();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int years = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        int cupsPerDay = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        StatisticsKernelBench bench = new StatisticsKernelBench(years, cupsPerDay);
+        System.out.printf("records=%d days=%d%n", bench.records.size(),
+                bench.endDate.toEpochDay() - bench.startDate.toEpochDay() + 1);
+        bench.verify();
+        bench.measure("legacy", seconds, bench::runLegacy);
+        bench.measure("kernel", seconds, bench::runKernel);
+        bench.measure("kernel accumulate only", seconds, () -> bench.sink = bench.accumulate());
+    }
+
+    private void verify() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        StatisticsKernel kernel = accumulate();
+        compare(mapper, "summary", legacySummary(), kernel.toSummary(startDate, endDate));
+        compare(mapper, "trends", legacyTrends(),
+                kernel.toTrends(startDate.toString(), endDate.toString(), null).getSeries());
+        compare(mapper, "calendar", legacyCalendar(), kernel.toCalendar().getDays());
+    }
+
+    private static void compare(ObjectMapper mapper, String name, Object legacy, Object kernel) throws Exception {
+        String expected = mapper.writeValueAsString(legacy);
+        String actual = mapper.writeValueAsString(kernel);
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException(name + " 输出不一致:\n" + expected + "\n" + actual);
+        }
+    }
+
+    private void measure(String name, int seconds, Runnable task) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            task.run();
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        int iterations = 0;
+        while (System.nanoTime() < deadline) {
+            task.run();
+            iterations++;
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%-24s %10.1f us/op %12.0f B/op%n",
+                name, elapsed / 1e3 / iterations, (double) allocated / iterations);
+    }
+
+    private StatisticsKernel accumulate() {
+        StatisticsKernel kernel = new StatisticsKernel(startDate, endDate)
+                .withTrends(TrendBucketer.of("day", startDate, endDate))
+                .withCalendar(YearMonth.from(endDate));
+        for (int i = 0; i < rowDays.length; i++) {
+            kernel.accept(rowDays[i], rowBrandIds[i], rowBrandNames[i], 1,
+                    rowCents[i], rowRatings[i], rowCents[i], rowCents[i]);
+        }
+        return kernel;
+    }
+
+    private void runKernel() {
+        StatisticsKernel kernel = accumulate();
+        sink = kernel.toSummary(startDate, endDate);
+        sink = kernel.toBrandStatistics(startDate, endDate);
+        sink = kernel.toTrends(startDate.toString(), endDate.toString(), null);
+        sink = kernel.toCalendar();
+    }
+
+    // 以下为引入内核前的实现：基础统计 + 品牌统计 + 按天趋势 + 当月日历
+
+    private void runLegacy() {
+        sink = legacySummary();
+        sink = legacyBrands();
+        sink = legacyTrends();
+        sink = legacyCalendar();
+    }
+
+    private StatisticsDtos.SummaryResponse legacySummary() {
+        long totalCups = records.size();
+        long totalDays = records.stream().map(MilkTeaRecord::getConsumeDate).distinct().count();
+        BigDecimal totalAmount = records.stream()
+                .map(MilkTeaRecord::getPrice)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal averagePrice = totalCups > 0
+                ? totalAmount.divide(BigDecimal.valueOf(totalCups), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+        Optional<BigDecimal> maxPrice = records.stream().map(MilkTeaRecord::getPrice).max(BigDecimal::compareTo);
+        Optional<BigDecimal> minPrice = records.stream().map(MilkTeaRecord::getPrice).min(BigDecimal::compareTo);
+        double averageRating = records.stream().mapToInt(MilkTeaRecord::getRating).average().orElse(0.0);
+        return new StatisticsDtos.SummaryResponse(totalCups, totalDays, totalAmount, averagePrice,
+                maxPrice.orElse(BigDecimal.ZERO), minPrice.orElse(BigDecimal.ZERO), averageRating,
+                startDate, endDate);
+    }
+
+    private List<StatisticsDtos.BrandStatistics> legacyBrands() {
+        long totalCount = records.size();
+        Map<Long, List<MilkTeaRecord>> groupedByBrand = records.stream()
+                .collect(Collectors.groupingBy(record -> record.getBrand().getId()));
+        return groupedByBrand.entrySet().stream()
+                .map(entry -> {
+                    List<MilkTeaRecord> brandRecords = entry.getValue();
+                    long count = brandRecords.size();
+                    BigDecimal amount = brandRecords.stream()
+                            .map(MilkTeaRecord::getPrice)
+                            .reduce(BigDecimal.ZERO, BigDecimal::add);
+                    double averageRating = brandRecords.stream()
+                            .mapToInt(MilkTeaRecord::getRating).average().orElse(0.0);
+                    return new StatisticsDtos.BrandStatistics(entry.getKey(),
+                            brandRecords.get(0).getBrand().getName(), count, amount, averageRating,
+                            totalCount > 0 ? (double) count / totalCount * 100 : 0.0);
+                })
+                .sorted((left, right) -> Long.compare(right.getCount(), left.getCount()))
+                .collect(Collectors.toList());
+    }
+
+    private StatisticsDtos.TrendSeries legacyTrends() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        Map<String, List<MilkTeaRecord>> groupedRecords = new LinkedHashMap<>();
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            groupedRecords.put(date.format(formatter), new ArrayList<>());
+        }
+        for (MilkTeaRecord record : records) {
+            groupedRecords.get(record.getConsumeDate().format(formatter)).add(record);
+        }
+
+        List<StatisticsDtos.TrendDataPoint> cups = new ArrayList<>();
+        List<StatisticsDtos.TrendDataPoint> amount = new ArrayList<>();
+        for (Map.Entry<String, List<MilkTeaRecord>> entry : groupedRecords.entrySet()) {
+            BigDecimal total = entry.getValue().stream()
+                    .map(MilkTeaRecord::getPrice)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            cups.add(new StatisticsDtos.TrendDataPoint(entry.getKey(), BigDecimal.valueOf(entry.getValue().size())));
+            amount.add(new StatisticsDtos.TrendDataPoint(entry.getKey(), total));
+        }
+        return new StatisticsDtos.TrendSeries(cups, amount);
+    }
+
+    private List<StatisticsDtos.CalendarDay> legacyCalendar() {
+        YearMonth month = YearMonth.from(endDate);
+        Map<LocalDate, List<MilkTeaRecord>> byDate = records.stream()
+                .filter(record -> YearMonth.from(record.getConsumeDate()).equals(month))
+                .collect(Collectors.groupingBy(MilkTeaRecord::getConsumeDate));
+
+        List<StatisticsDtos.CalendarDay> days = new ArrayList<>();
+        for (int day = 1; day <= month.lengthOfMonth(); day++) {
+            LocalDate date = month.atDay(day);
+            List<MilkTeaRecord> dayRecords = byDate.getOrDefault(date, Collections.emptyList());
+            BigDecimal amount = dayRecords.stream()
+                    .map(MilkTeaRecord::getPrice)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            days.add(new StatisticsDtos.CalendarDay(date, dayRecords.size(), amount, !dayRecords.isEmpty()));
+        }
+        return days;
+    }
+}
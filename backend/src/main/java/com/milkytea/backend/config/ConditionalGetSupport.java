@@ -0,0 +1,153 @@
+package com.milkytea.backend.config;
+
+import com.milkytea.backend.controller.BrandController;
+import com.milkytea.backend.controller.RecordController;
+import com.milkytea.backend.controller.StatisticsController;
+import com.milkytea.backend.security.JwtPrincipal;
+import com.milkytea.backend.service.DataVersionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Enumeration;
+
+/**
+ * 记录、统计与品牌查询的条件请求：进入控制器前按数据版本及请求地址生成强 ETag，
+ * 与 If-None-Match 相同时直接返回 304，不再执行查询与序列化；
+ * ETag 含请求路径与查询参数的摘要，一个地址的 ETag 不能用于验证其他地址；
+ * 否则在成功响应上附带 ETag，错误响应不附带，避免客户端缓存后重新验证命中错误结果。
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+public class ConditionalGetSupport implements HandlerInterceptor, ResponseBodyAdvice<Object> {
+
+    private static final String CACHE_CONTROL = "private, no-cache";
+
+    private static final String ETAG_ATTRIBUTE = ConditionalGetSupport.class.getName() + ".etag";
+
+    private final DataVersionService dataVersionService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod)
+                || !("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()))) {
+            return true;
+        }
+
+        String version = resolveETag(((HandlerMethod) handler).getBeanType(), currentUserId(request));
+        if (version == null) {
+            return true;
+        }
+        String etag = version.substring(0, version.length() - 1) + "-" + requestDigest(request) + "\"";
+        if (matches(request.getHeaders(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+            return false;
+        }
+        request.setAttribute(ETAG_ATTRIBUTE, etag);
+        return true;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest && response instanceof ServletServerHttpResponse) {
+            Object etag = ((ServletServerHttpRequest) request).getServletRequest().getAttribute(ETAG_ATTRIBUTE);
+            int status = ((ServletServerHttpResponse) response).getServletResponse().getStatus();
+            if (etag != null && HttpStatus.Series.resolve(status) == HttpStatus.Series.SUCCESSFUL) {
+                response.getHeaders().setETag((String) etag);
+                response.getHeaders().setCacheControl(CACHE_CONTROL);
+            }
+        }
+        return body;
+    }
+
+    private String resolveETag(Class<?> controller, Long userId) {
+        if (controller == BrandController.class) {
+            return dataVersionService.brandETag();
+        }
+        if (userId == null) {
+            return null;
+        }
+        if (controller == RecordController.class) {
+            return dataVersionService.userETag(userId, false);
+        }
+        if (controller == StatisticsController.class) {
+            return dataVersionService.userETag(userId, true);
+        }
+        return null;
+    }
+
+    /**
+     * 认证过滤器设置的用户 ID，未认证时返回 null。
+     */
+    private static Long currentUserId(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal instanceof Authentication
+                && ((Authentication) principal).getPrincipal() instanceof JwtPrincipal) {
+            return ((JwtPrincipal) ((Authentication) principal).getPrincipal()).getUserId();
+        }
+        return null;
+    }
+
+    /**
+     * 请求路径与查询参数的 SHA-256 摘要，取前 9 个字节按 URL 安全的 Base64 编码。
+     */
+    private static String requestDigest(HttpServletRequest request) {
+        String query = request.getQueryString();
+        String resource = query != null ? request.getRequestURI() + "?" + query : request.getRequestURI();
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(resource.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 9));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * If-None-Match 按弱比较匹配，可以是多个 ETag。
+     * 进入控制器前无法确认资源是否存在（如记录 ID、游标或月份无效），* 不视为匹配，照常执行请求。
+     */
+    private static boolean matches(Enumeration<String> ifNoneMatch, String etag) {
+        while (ifNoneMatch.hasMoreElements()) {
+            for (String candidate : ifNoneMatch.nextElement().split(",")) {
+                candidate = candidate.trim();
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if (candidate.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,29 @@
+package com.milkytea.backend.config;
+
+import com.milkytea.backend.service.DailyStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 以 --app.statistics.rebuild-daily-stats=true 启动时，由记录表重新生成每日汇总表，
+ * 用于修复汇总数据或手工改动记录表之后的校正。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.statistics.rebuild-daily-stats", havingValue = "true")
+public class DailyStatsRebuildRunner implements ApplicationRunner {
+
+    private final DailyStatsService dailyStatsService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        int days = dailyStatsService.rebuildAll();
+        log.info("每日汇总表重建完成，共 {} 条，耗时 {} ms", days, System.currentTimeMillis() - start);
+    }
+}
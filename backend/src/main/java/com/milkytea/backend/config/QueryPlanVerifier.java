@@ -0,0 +1,197 @@
+package com.milkytea.backend.config;
+
+import com.milkytea.backend.entity.UserDailyStats;
+import com.milkytea.backend.repository.BrandRepository;
+import com.milkytea.backend.repository.MilkTeaRecordRepository;
+import com.milkytea.backend.repository.RecordSpecifications;
+import com.milkytea.backend.repository.RecordTombstoneRepository;
+import com.milkytea.backend.repository.UserDailyBrandStatsRepository;
+import com.milkytea.backend.repository.UserDailyDistributionRepository;
+import com.milkytea.backend.repository.UserDailyStatsRepository;
+import com.milkytea.backend.repository.UserRepository;
+import com.milkytea.backend.service.DailyStatsService;
+import com.milkytea.backend.service.RecordService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * 启动时在回滚的事务中逐个调用记录表、每日汇总表、墓碑表及用户表上的查询，
+ * 由 {@link StatementRecorder} 记下仓库实际执行的 SQL 与参数后逐条 EXPLAIN，
+ * 发现未按索引条件读取的扫描时按 app.db.query-plan-check 告警或终止启动。
+ * 仓库新增查询时需要在 {@link #checks()} 中补充一次调用。
+ * 品牌列表与由记录表整体重建汇总本身就要读取整张表，不在检查范围内。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnExpression("!'${app.db.query-plan-check:warn}'.equalsIgnoreCase('off')")
+public class QueryPlanVerifier implements ApplicationRunner {
+
+    private static final Long USER_ID = 1L;
+    private static final Long BRAND_ID = 1L;
+    private static final Long RECORD_ID = 100L;
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+    private static final LocalDate END = LocalDate.of(2025, 12, 31);
+
+    /**
+     * H2 执行计划中不带索引条件的访问注释：全表扫描（tableScan）或整个索引的顺序扫描，
+     * 有条件时注释形如 PUBLIC.IDX_xxx: USER_ID = ?1。
+     */
+    private static final Pattern UNFILTERED_SCAN = Pattern.compile("/\\*\\s*\\w+\\.\\w+(\\.tableScan)?\\s*\\*/");
+
+    private final StatementRecorder statementRecorder;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final RecordService recordService;
+    private final DailyStatsService dailyStatsService;
+    private final MilkTeaRecordRepository recordRepository;
+    private final RecordTombstoneRepository tombstoneRepository;
+    private final UserDailyStatsRepository dailyStatsRepository;
+    private final UserDailyBrandStatsRepository dailyBrandStatsRepository;
+    private final UserDailyDistributionRepository dailyDistributionRepository;
+    private final UserRepository userRepository;
+    private final BrandRepository brandRepository;
+
+    @Value("${app.db.query-plan-check:warn}")
+    private String mode;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // 同一条 SQL 只检查一次，记下最先执行它的调用
+        Map<String, StatementRecorder.RecordedStatement> statements = new LinkedHashMap<>();
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (Map.Entry<String, Runnable> check : checks().entrySet()) {
+            for (StatementRecorder.RecordedStatement statement : statementRecorder.record(() -> rollback(check.getValue()))) {
+                if (statements.putIfAbsent(statement.getSql(), statement) == null) {
+                    sources.put(statement.getSql(), check.getKey());
+                }
+            }
+        }
+
+        Set<String> tableScans = new TreeSet<>();
+        for (StatementRecorder.RecordedStatement statement : statements.values()) {
+            String source = sources.get(statement.getSql());
+            String plan = jdbcTemplate.queryForObject(
+                    "EXPLAIN " + statement.getSql(), String.class, statement.getParameters());
+            if (plan != null && UNFILTERED_SCAN.matcher(plan).find()) {
+                log.warn("查询 {} 未使用索引，执行计划:\n{}", source, plan);
+                tableScans.add(source);
+            }
+        }
+
+        if (tableScans.isEmpty()) {
+            log.info("查询计划检查通过，{} 条查询均命中索引", statements.size());
+        } else if ("fail".equalsIgnoreCase(mode)) {
+            throw new IllegalStateException("以下查询出现全表扫描: " + tableScans);
+        }
+    }
+
+    /**
+     * 在事务中执行后回滚，写操作不会留下数据；查不到数据导致的业务异常不影响已记录的语句。
+     */
+    private void rollback(Runnable check) {
+        transactionTemplate.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            try {
+                check.run();
+            } catch (RuntimeException e) {
+                log.debug("查询计划检查调用异常: {}", e.getMessage());
+            }
+        });
+    }
+
+    private Map<String, Runnable> checks() {
+        String start = START.toString();
+        String end = END.toString();
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((END.toEpochDay() + ":" + RECORD_ID).getBytes(StandardCharsets.UTF_8));
+        List<Long> recordIds = Collections.singletonList(RECORD_ID);
+        List<LocalDate> rangeDates = new ArrayList<>();
+        for (LocalDate date = START; date.isBefore(START.plusDays(100)); date = date.plusDays(1)) {
+            rangeDates.add(date);
+        }
+
+        Map<String, Runnable> checks = new LinkedHashMap<>();
+        checks.put("records.list", () -> recordService.getUserRecords(USER_ID, null, null, null, null, null, 0, 20));
+        checks.put("records.listByDate", () -> recordService.getUserRecords(USER_ID, end, null, null, null, null, 0, 20));
+        checks.put("records.listByDateRange",
+                () -> recordService.getUserRecords(USER_ID, null, start, end, null, null, 0, 20));
+        checks.put("records.listByBrand",
+                () -> recordService.getUserRecords(USER_ID, null, null, null, BRAND_ID, null, null, null));
+        checks.put("records.listByCategory",
+                () -> recordService.getUserRecords(USER_ID, null, null, null, null, "奶茶", 0, 20));
+        checks.put("records.seekAfter",
+                () -> recordService.getUserRecordsAfter(USER_ID, null, start, end, null, null, cursor, 20));
+        checks.put("records.changedBetween", () -> recordRepository.findResponses(
+                Specification.where(RecordSpecifications.belongsTo(USER_ID))
+                        .and(RecordSpecifications.changedBetween(0L, 100L)),
+                Sort.by("changeSeq"), 501));
+        checks.put("records.findByIdAndUserId", () -> recordRepository.findByIdAndUserId(RECORD_ID, USER_ID));
+        checks.put("records.batchDelete", () -> {
+            recordRepository.findByUserIdAndIdIn(USER_ID, recordIds);
+            recordRepository.deleteAllByIdInBatch(recordIds);
+        });
+        checks.put("records.scanResponses", () -> recordRepository.scanResponses(USER_ID, START, END, record -> {
+        }));
+        checks.put("records.scanAllResponses", () -> recordRepository.scanResponses(USER_ID, null, null, record -> {
+        }));
+        checks.put("recordTombstones.findChanges",
+                () -> tombstoneRepository.findChanges(USER_ID, 0L, 100L, PageRequest.of(0, 501)));
+        checks.put("dailyStats.refreshDay",
+                () -> dailyStatsService.refreshDays(USER_ID, Collections.singleton(END)));
+        checks.put("dailyStats.rebuildRange", () -> dailyStatsService.refreshDays(USER_ID, rangeDates));
+        checks.put("dailyStats.findById",
+                () -> dailyStatsRepository.findById(new UserDailyStats.Key(USER_ID, END)));
+        checks.put("dailyStats.scanDays", () -> dailyStatsRepository.scanDays(USER_ID, START, END,
+                (day, cups, amountCents, ratingSum, minPriceCents, maxPriceCents) -> {
+                }));
+        checks.put("dailyStats.scanAllDays", () -> dailyStatsRepository.scanAllDays(USER_ID,
+                (day, cups, amountCents, ratingSum, minPriceCents, maxPriceCents) -> {
+                }));
+        checks.put("dailyStats.summarize", () -> dailyStatsRepository.summarize(USER_ID, START, END));
+        checks.put("dailyBrandStats.scanDayBrandRows", () -> dailyBrandStatsRepository.scanDayBrandRows(
+                USER_ID, START, END, (day, brandId, brandName, cups, amountCents, ratingSum, min, max) -> {
+                }));
+        checks.put("dailyBrandStats.summarizeByBrand",
+                () -> dailyBrandStatsRepository.summarizeByBrand(USER_ID, START, END));
+        checks.put("dailyDistribution.summarize",
+                () -> dailyDistributionRepository.summarize(USER_ID, START, END));
+        checks.put("users.findByUsername", () -> userRepository.findByUsername("tester"));
+        checks.put("users.findByPhone", () -> userRepository.findByPhone("13800000000"));
+        checks.put("users.existsByUsername", () -> userRepository.existsByUsername("tester"));
+        checks.put("users.existsByPhone", () -> userRepository.existsByPhone("13800000000"));
+        checks.put("users.findIdByUsername", () -> userRepository.findIdByUsername("tester"));
+        checks.put("users.findTokenVersionById", () -> userRepository.findTokenVersionById(USER_ID));
+        checks.put("users.advanceRecordChangeSeq", () -> {
+            userRepository.advanceRecordChangeSeq(USER_ID, 1);
+            userRepository.findRecordChangeSeq(USER_ID);
+        });
+        checks.put("users.updatePasswordByUsername", () -> userRepository.updatePasswordByUsername("tester", ""));
+        checks.put("brands.findByName", () -> brandRepository.findByName("品牌"));
+        checks.put("brands.existsByName", () -> brandRepository.existsByName("品牌"));
+        checks.put("brands.findNameById", () -> brandRepository.findNameById(BRAND_ID));
+        return checks;
+    }
+}
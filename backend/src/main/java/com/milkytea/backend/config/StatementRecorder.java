@@ -0,0 +1,138 @@
+package com.milkytea.backend.config;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 包装应用的数据源，在 {@link #record} 执行期间记录当前线程执行的预编译 SQL 及绑定的参数，
+ * 供 {@link QueryPlanVerifier} 对仓库实际生成的语句执行 EXPLAIN。
+ * 不在记录时 getConnection 直接返回连接池的连接，正常请求不经过代理。
+ */
+@Component
+@ConditionalOnExpression("!'${app.db.query-plan-check:warn}'.equalsIgnoreCase('off')")
+public class StatementRecorder implements BeanPostProcessor {
+
+    private static final ThreadLocal<List<RecordedStatement>> RECORDING = new ThreadLocal<>();
+
+    /**
+     * 执行 action，按执行顺序返回其间执行的语句。连接需在 action 内取得，事务也应在 action 内开启。
+     */
+    public List<RecordedStatement> record(Runnable action) {
+        List<RecordedStatement> statements = new ArrayList<>();
+        RECORDING.set(statements);
+        try {
+            action.run();
+        } finally {
+            RECORDING.remove();
+        }
+        return statements;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+        if (bean instanceof DataSource && !(bean instanceof RecordingDataSource)) {
+            return new RecordingDataSource((DataSource) bean);
+        }
+        return bean;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class RecordedStatement {
+        private final String sql;
+        private final Object[] parameters;
+    }
+
+    private static class RecordingDataSource extends DelegatingDataSource {
+
+        RecordingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        @NonNull
+        public Connection getConnection() throws SQLException {
+            return wrap(obtainTargetDataSource().getConnection());
+        }
+
+        @Override
+        @NonNull
+        public Connection getConnection(@NonNull String username, @NonNull String password) throws SQLException {
+            return wrap(obtainTargetDataSource().getConnection(username, password));
+        }
+
+        private static Connection wrap(Connection connection) {
+            if (RECORDING.get() == null) {
+                return connection;
+            }
+            return (Connection) Proxy.newProxyInstance(StatementRecorder.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if ("equals".equals(method.getName())) {
+                            return proxy == args[0];
+                        }
+                        Object result = invoke(connection, method, args);
+                        if ("prepareStatement".equals(method.getName())) {
+                            return Proxy.newProxyInstance(StatementRecorder.class.getClassLoader(),
+                                    new Class<?>[]{PreparedStatement.class},
+                                    new StatementHandler((PreparedStatement) result, (String) args[0]));
+                        }
+                        return result;
+                    });
+        }
+    }
+
+    /**
+     * 记录 setXxx(index, value) 绑定的参数，执行时把 SQL 与当前参数加入记录列表。
+     */
+    @RequiredArgsConstructor
+    private static class StatementHandler implements InvocationHandler {
+
+        private final PreparedStatement target;
+        private final String sql;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parameters.put((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+            } else if ("clearParameters".equals(name)) {
+                parameters.clear();
+            } else if ((name.startsWith("execute") || "addBatch".equals(name)) && (args == null || args.length == 0)) {
+                List<RecordedStatement> recording = RECORDING.get();
+                if (recording != null) {
+                    recording.add(new RecordedStatement(sql, parameters.values().toArray()));
+                }
+            } else if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            return StatementRecorder.invoke(target, method, args);
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.milkytea.backend.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ConditionalGetSupport conditionalGetSupport;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(conditionalGetSupport)
+                .addPathPatterns("/api/records", "/api/records/**", "/api/statistics/**",
+                        "/api/brands", "/api/brands/**");
+    }
+}
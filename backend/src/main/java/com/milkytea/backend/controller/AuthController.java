@@ -9,6 +9,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -19,16 +20,16 @@ public class AuthController {
     private final AuthService authService;
 
     @PostMapping("/register")
-    @Operation(summary = "用户注册", description = "创建新用户账号")
-    public ResponseEntity<AuthDtos.AuthResponse> register(@Valid @RequestBody AuthDtos.RegisterRequest request) {
-        AuthDtos.AuthResponse response = authService.register(request);
-        return ResponseEntity.ok(response);
+    @Operation(summary = "用户注册", description = "创建新用户账号，密码哈希繁忙时返回 503 与 Retry-After")
+    public CompletableFuture<ResponseEntity<AuthDtos.AuthResponse>> register(
+            @Valid @RequestBody AuthDtos.RegisterRequest request) {
+        return authService.register(request).thenApply(ResponseEntity::ok);
     }
 
     @PostMapping("/login")
-    @Operation(summary = "用户登录", description = "使用手机号和密码登录")
-    public ResponseEntity<AuthDtos.AuthResponse> login(@Valid @RequestBody AuthDtos.LoginRequest request) {
-        AuthDtos.AuthResponse response = authService.login(request);
-        return ResponseEntity.ok(response);
+    @Operation(summary = "用户登录", description = "使用手机号和密码登录，密码校验繁忙时返回 503 与 Retry-After")
+    public CompletableFuture<ResponseEntity<AuthDtos.AuthResponse>> login(
+            @Valid @RequestBody AuthDtos.LoginRequest request) {
+        return authService.login(request).thenApply(ResponseEntity::ok);
     }
 }
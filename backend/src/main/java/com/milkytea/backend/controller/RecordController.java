@@ -1,18 +1,30 @@
 package com.milkytea.backend.controller;
 
 import com.milkytea.backend.dto.RecordDtos;
+import com.milkytea.backend.security.JwtPrincipal;
+import com.milkytea.backend.service.RecordExportService;
+import com.milkytea.backend.service.RecordImportService;
 import com.milkytea.backend.service.RecordService;
+import com.milkytea.backend.service.RecordSyncService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/records")
@@ -21,22 +33,26 @@ import java.util.List;
 @SecurityRequirement(name = "Bearer Authentication")
 public class RecordController {
 
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
     private final RecordService recordService;
+    private final RecordSyncService recordSyncService;
+    private final RecordExportService recordExportService;
+    private final RecordImportService recordImportService;
 
     @PostMapping
     @Operation(summary = "创建记录", description = "创建新的奶茶消费记录")
     public ResponseEntity<RecordDtos.RecordResponse> createRecord(
-            Authentication authentication,
+            @AuthenticationPrincipal JwtPrincipal principal,
             @Valid @RequestBody RecordDtos.CreateRecordRequest request) {
-        String username = authentication.getName();
-        RecordDtos.RecordResponse response = recordService.createRecord(username, request);
+        RecordDtos.RecordResponse response = recordService.createRecord(principal.getUserId(), request);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
     @GetMapping
-    @Operation(summary = "获取记录列表", description = "获取当前用户的奶茶消费记录，支持按日期/品牌/品类筛选")
+    @Operation(summary = "获取记录列表", description = "获取当前用户的奶茶消费记录，支持按日期/品牌/品类筛选，总条数通过 X-Total-Count 响应头返回")
     public ResponseEntity<List<RecordDtos.RecordResponse>> getRecords(
-            Authentication authentication,
+            @AuthenticationPrincipal JwtPrincipal principal,
             @RequestParam(required = false) String date,
             @RequestParam(required = false) String startDate,
             @RequestParam(required = false) String endDate,
@@ -44,50 +60,111 @@ public class RecordController {
             @RequestParam(required = false) String category,
             @RequestParam(required = false) Integer page,
             @RequestParam(required = false) Integer size) {
-        String username = authentication.getName();
-        List<RecordDtos.RecordResponse> response = recordService.getUserRecords(
-                username, date, startDate, endDate, brandId, category, page, size);
+        Page<RecordDtos.RecordResponse> response = recordService.getUserRecords(
+                principal.getUserId(), date, startDate, endDate, brandId, category, page, size);
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(response.getTotalElements()))
+                .body(response.getContent());
+    }
+
+    @GetMapping(params = "limit")
+    @Operation(summary = "游标分页获取记录", description = "传入 limit 时按 (消费日期, ID) 键集分页，after 为上一页返回的 nextCursor")
+    public ResponseEntity<RecordDtos.RecordCursorPage> getRecordsByCursor(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam(required = false) String date,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) Long brandId,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String after,
+            @RequestParam int limit) {
+        RecordDtos.RecordCursorPage response = recordService.getUserRecordsAfter(
+                principal.getUserId(), date, startDate, endDate, brandId, category, after, limit);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/changes")
+    @Operation(summary = "增量同步记录", description = "返回变更序号大于 since 的新增、修改和删除，首次同步传 0；hasMore 为 true 时以 nextSince 继续请求")
+    public ResponseEntity<RecordDtos.RecordChanges> getRecordChanges(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(required = false) Integer limit) {
+        RecordDtos.RecordChanges response = recordSyncService.getChanges(principal.getUserId(), since, limit);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "导出记录", description = "以 CSV 或 NDJSON 流式导出当前用户的记录（排序同记录列表），请求头 Accept-Encoding 含 gzip 时压缩传输")
+    public ResponseEntity<StreamingResponseBody> exportRecords(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        RecordExportService.Format exportFormat = RecordExportService.Format.of(format);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+        StreamingResponseBody body = recordExportService.export(principal.getUserId(), exportFormat, startDate, endDate, gzip);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.valueOf(exportFormat.getMediaType()), StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("milkytea-records." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "批量导入记录", description = "请求体为 CSV（首行为列名，列名同导出文件）或记录对象的 JSON 数组，校验失败的行跳过并在结果中返回行号与原因")
+    public ResponseEntity<RecordDtos.ImportResult> importRecords(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) {
+        RecordImportService.Format format = MediaType.APPLICATION_JSON.isCompatibleWith(contentType)
+                ? RecordImportService.Format.JSON
+                : RecordImportService.Format.CSV;
+        RecordDtos.ImportResult response = recordImportService.importRecords(principal.getUserId(), format, body);
         return ResponseEntity.ok(response);
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "获取记录详情", description = "根据ID获取奶茶消费记录详情")
     public ResponseEntity<RecordDtos.RecordResponse> getRecord(
-            Authentication authentication,
+            @AuthenticationPrincipal JwtPrincipal principal,
             @PathVariable Long id) {
-        String username = authentication.getName();
-        RecordDtos.RecordResponse response = recordService.getRecordById(username, id);
+        RecordDtos.RecordResponse response = recordService.getRecordById(principal.getUserId(), id);
         return ResponseEntity.ok(response);
     }
 
     @PutMapping("/{id}")
     @Operation(summary = "更新记录", description = "更新已存在的奶茶消费记录")
     public ResponseEntity<RecordDtos.RecordResponse> updateRecord(
-            Authentication authentication,
+            @AuthenticationPrincipal JwtPrincipal principal,
             @PathVariable Long id,
             @Valid @RequestBody RecordDtos.UpdateRecordRequest request) {
-        String username = authentication.getName();
-        RecordDtos.RecordResponse response = recordService.updateRecord(username, id, request);
+        RecordDtos.RecordResponse response = recordService.updateRecord(principal.getUserId(), id, request);
         return ResponseEntity.ok(response);
     }
 
     @DeleteMapping("/{id}")
     @Operation(summary = "删除记录", description = "删除指定的奶茶消费记录")
     public ResponseEntity<Void> deleteRecord(
-            Authentication authentication,
+            @AuthenticationPrincipal JwtPrincipal principal,
             @PathVariable Long id) {
-        String username = authentication.getName();
-        recordService.deleteRecord(username, id);
+        recordService.deleteRecord(principal.getUserId(), id);
         return ResponseEntity.noContent().build();
     }
 
     @PostMapping("/batch-delete")
     @Operation(summary = "批量删除记录", description = "批量删除当前用户的多条奶茶消费记录")
     public ResponseEntity<Void> batchDeleteRecords(
-            Authentication authentication,
+            @AuthenticationPrincipal JwtPrincipal principal,
             @Valid @RequestBody RecordDtos.BatchDeleteRequest request) {
-        String username = authentication.getName();
-        recordService.batchDeleteRecords(username, request.getIds());
+        recordService.batchDeleteRecords(principal.getUserId(), request.getIds());
         return ResponseEntity.noContent().build();
     }
 }
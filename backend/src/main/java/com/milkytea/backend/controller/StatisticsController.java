@@ -1,6 +1,7 @@
 package com.milkytea.backend.controller;
 
 import com.milkytea.backend.dto.StatisticsDtos;
+import com.milkytea.backend.security.JwtPrincipal;
 import com.milkytea.backend.service.StatisticsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -8,7 +9,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
@@ -25,46 +26,85 @@ public class StatisticsController {
     @GetMapping("/summary")
     @Operation(summary = "获取基础统计", description = "获取指定时间段的基础统计数据")
     public ResponseEntity<StatisticsDtos.SummaryResponse> getSummary(
-            Authentication authentication,
+            @AuthenticationPrincipal JwtPrincipal principal,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        String username = authentication.getName();
-        StatisticsDtos.SummaryResponse response = statisticsService.getSummary(username, startDate, endDate);
+        StatisticsDtos.SummaryResponse response = statisticsService.getSummary(principal.getUserId(), startDate, endDate);
         return ResponseEntity.ok(response);
     }
 
     @GetMapping("/brands")
     @Operation(summary = "获取品牌统计", description = "获取指定时间段的品牌统计数据")
     public ResponseEntity<StatisticsDtos.BrandStatisticsResponse> getBrandStatistics(
-            Authentication authentication,
+            @AuthenticationPrincipal JwtPrincipal principal,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        String username = authentication.getName();
         StatisticsDtos.BrandStatisticsResponse response = statisticsService.getBrandStatistics(
-                username, startDate, endDate);
+                principal.getUserId(), startDate, endDate);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/distribution")
+    @Operation(summary = "获取分布统计", description = "返回指定时间段内单价中位数与 90 分位、评分直方图及甜度、冰度分布")
+    public ResponseEntity<StatisticsDtos.DistributionResponse> getDistribution(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        StatisticsDtos.DistributionResponse response = statisticsService.getDistribution(
+                principal.getUserId(), startDate, endDate);
         return ResponseEntity.ok(response);
     }
 
     @GetMapping("/trends")
-    @Operation(summary = "获取趋势分析", description = "返回指定时间段内每天/每周/每月的杯数与金额趋势")
+    @Operation(summary = "获取趋势分析", description = "返回指定时间段内按日/周/月/季度/年或星期几分组的杯数与金额趋势。"
+            + "每条曲线最多 maxPoints 个点，未指定时为 ${app.statistics.trends.default-max-points:500}，"
+            + "可指定的最大值为 ${app.statistics.trends.max-points-limit:2000}，超出时返回 400")
     public ResponseEntity<StatisticsDtos.TrendsResponse> getTrends(
-            Authentication authentication,
+            @AuthenticationPrincipal JwtPrincipal principal,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @RequestParam(required = false, defaultValue = "day") String groupBy) {
-        String username = authentication.getName();
-        StatisticsDtos.TrendsResponse response = statisticsService.getTrends(username, startDate, endDate, groupBy);
+            @RequestParam(required = false, defaultValue = "day") String groupBy,
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestParam(required = false, defaultValue = "coarsen") String downsample) {
+        StatisticsDtos.TrendsResponse response = statisticsService.getTrends(
+                principal.getUserId(), startDate, endDate, groupBy, maxPoints, downsample);
         return ResponseEntity.ok(response);
     }
 
     @GetMapping("/calendar/{year}/{month}")
     @Operation(summary = "获取日历月度数据", description = "获取指定年月的日历消费数据")
     public ResponseEntity<StatisticsDtos.CalendarMonthResponse> getCalendarData(
-            Authentication authentication,
+            @AuthenticationPrincipal JwtPrincipal principal,
             @PathVariable int year,
             @PathVariable int month) {
-        String username = authentication.getName();
-        StatisticsDtos.CalendarMonthResponse response = statisticsService.getCalendarData(username, year, month);
+        StatisticsDtos.CalendarMonthResponse response = statisticsService.getCalendarData(principal.getUserId(), year, month);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/heatmap/{year}")
+    @Operation(summary = "获取年度热力图", description = "返回指定年份每天的杯数，以及当前与该年内最长的连续消费天数")
+    public ResponseEntity<StatisticsDtos.HeatmapResponse> getHeatmap(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @PathVariable int year) {
+        StatisticsDtos.HeatmapResponse response = statisticsService.getHeatmap(principal.getUserId(), year);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/dashboard")
+    @Operation(summary = "获取仪表盘数据", description = "一次返回基础统计、品牌统计、趋势分析与日历月度数据。"
+            + "趋势每条曲线最多 maxPoints 个点，未指定时为 ${app.statistics.trends.default-max-points:500}，"
+            + "可指定的最大值为 ${app.statistics.trends.max-points-limit:2000}，超出时返回 400")
+    public ResponseEntity<StatisticsDtos.DashboardResponse> getDashboard(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false, defaultValue = "day") String groupBy,
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestParam(required = false, defaultValue = "coarsen") String downsample,
+            @RequestParam(required = false) Integer year,
+            @RequestParam(required = false) Integer month) {
+        StatisticsDtos.DashboardResponse response = statisticsService.getDashboard(
+                principal.getUserId(), startDate, endDate, groupBy, maxPoints, downsample, year, month);
         return ResponseEntity.ok(response);
     }
 }
@@ -1,16 +1,20 @@
 package com.milkytea.backend.controller;
 
 import com.milkytea.backend.dto.UserDtos;
+import com.milkytea.backend.security.JwtPrincipal;
+import com.milkytea.backend.service.AuthService;
 import com.milkytea.backend.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/user")
@@ -20,42 +24,44 @@ import javax.validation.Valid;
 public class UserController {
 
     private final UserService userService;
+    private final AuthService authService;
 
     @GetMapping("/profile")
     @Operation(summary = "获取用户信息", description = "获取当前登录用户的个人信息")
-    public ResponseEntity<UserDtos.UserProfileResponse> getProfile(Authentication authentication) {
-        String username = authentication.getName();
-        UserDtos.UserProfileResponse response = userService.getUserProfile(username);
+    public ResponseEntity<UserDtos.UserProfileResponse> getProfile(@AuthenticationPrincipal JwtPrincipal principal) {
+        UserDtos.UserProfileResponse response = userService.getUserProfile(principal.getUserId());
         return ResponseEntity.ok(response);
     }
 
     @PutMapping("/profile")
     @Operation(summary = "更新用户信息", description = "更新当前登录用户的个人信息")
     public ResponseEntity<UserDtos.UserProfileResponse> updateProfile(
-            Authentication authentication,
+            @AuthenticationPrincipal JwtPrincipal principal,
             @Valid @RequestBody UserDtos.UpdateProfileRequest request) {
-        String username = authentication.getName();
-        UserDtos.UserProfileResponse response = userService.updateUserProfile(username, request);
+        UserDtos.UserProfileResponse response = userService.updateUserProfile(principal.getUserId(), request);
         return ResponseEntity.ok(response);
     }
 
     @PatchMapping("/username")
-    @Operation(summary = "修改用户名", description = "修改当前登录用户的用户名")
+    @Operation(summary = "修改用户名", description = "修改当前登录用户的用户名，此前签发的令牌失效，新令牌通过 Authorization 响应头返回")
     public ResponseEntity<UserDtos.UserProfileResponse> updateUsername(
-            Authentication authentication,
+            @AuthenticationPrincipal JwtPrincipal principal,
             @Valid @RequestBody UserDtos.UpdateUsernameRequest request) {
-        String username = authentication.getName();
-        UserDtos.UserProfileResponse response = userService.updateUsername(username, request);
-        return ResponseEntity.ok(response);
+        UserDtos.UserProfileResponse response = userService.updateUsername(principal.getUserId(), request);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + authService.issueToken(principal.getUserId()))
+                .body(response);
     }
 
     @PostMapping("/change-password")
-    @Operation(summary = "修改密码", description = "修改当前登录用户的密码")
-    public ResponseEntity<Void> changePassword(
-            Authentication authentication,
+    @Operation(summary = "修改密码", description = "修改当前登录用户的密码，此前签发的令牌失效，新令牌通过 Authorization 响应头返回；密码哈希繁忙时返回 503 与 Retry-After")
+    public CompletableFuture<ResponseEntity<Void>> changePassword(
+            @AuthenticationPrincipal JwtPrincipal principal,
             @Valid @RequestBody UserDtos.ChangePasswordRequest request) {
-        String username = authentication.getName();
-        userService.changePassword(username, request);
-        return ResponseEntity.ok().build();
+        Long userId = principal.getUserId();
+        return userService.changePassword(userId, request)
+                .thenApply(done -> ResponseEntity.ok()
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + authService.issueToken(userId))
+                        .build());
     }
 }
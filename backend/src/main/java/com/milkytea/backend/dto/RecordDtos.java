@@ -125,6 +125,81 @@ public class RecordDtos {
 
         @Schema(description = "更新时间")
         private LocalDateTime updatedAt;
+
+        @Schema(description = "变更序号")
+        private Long changeSeq;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "游标分页记录响应")
+    public static class RecordCursorPage {
+        @Schema(description = "本页记录")
+        private List<RecordResponse> items;
+
+        @Schema(description = "下一页游标，没有更多记录时为空")
+        private String nextCursor;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "已删除的记录")
+    public static class DeletedRecord {
+        @Schema(description = "记录ID")
+        private Long id;
+
+        @Schema(description = "变更序号")
+        private Long changeSeq;
+
+        @Schema(description = "删除时间")
+        private LocalDateTime deletedAt;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "增量同步响应")
+    public static class RecordChanges {
+        @Schema(description = "变更序号大于 since 的新增或修改记录，按变更序号升序")
+        private List<RecordResponse> upserts;
+
+        @Schema(description = "变更序号大于 since 的已删除记录，since 为 0 时为空")
+        private List<DeletedRecord> deleted;
+
+        @Schema(description = "下次请求使用的 since")
+        private Long nextSince;
+
+        @Schema(description = "是否还有未返回的变更，为 true 时应立即以 nextSince 继续请求")
+        private Boolean hasMore;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "导入失败的行")
+    public static class ImportError {
+        @Schema(description = "行号，从 1 开始，CSV 不含表头行")
+        private Long row;
+
+        @Schema(description = "失败原因")
+        private String message;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "批量导入结果")
+    public static class ImportResult {
+        @Schema(description = "成功导入的记录数")
+        private Integer imported;
+
+        @Schema(description = "校验失败、未导入的行数")
+        private Integer failed;
+
+        @Schema(description = "失败行及原因，最多返回前 100 条")
+        private List<ImportError> errors;
     }
 
     @Data
@@ -155,7 +155,7 @@ public class StatisticsDtos {
     @AllArgsConstructor
     @Schema(description = "趋势分析响应")
     public static class TrendsResponse {
-        @Schema(description = "分组粒度")
+        @Schema(description = "实际使用的分组粒度，因 maxPoints 放大粒度时与请求参数不同")
         private String groupBy;
 
         @Schema(description = "趋势系列数据")
@@ -167,4 +167,103 @@ public class StatisticsDtos {
         @Schema(description = "结束日期")
         private String endDate;
     }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "仪表盘响应")
+    public static class DashboardResponse {
+        @Schema(description = "基础统计")
+        private SummaryResponse summary;
+
+        @Schema(description = "品牌统计")
+        private BrandStatisticsResponse brands;
+
+        @Schema(description = "趋势分析")
+        private TrendsResponse trends;
+
+        @Schema(description = "日历月度数据")
+        private CalendarMonthResponse calendar;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "分布统计项")
+    public static class DistributionBucket {
+        @Schema(description = "取值，评分为 0-10")
+        private String value;
+
+        @Schema(description = "杯数")
+        private Long count;
+
+        @Schema(description = "占比（百分比）")
+        private Double percentage;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "分布统计响应")
+    public static class DistributionResponse {
+        @Schema(description = "总杯数")
+        private Long totalCups;
+
+        @Schema(description = "单价中位数（估计值，相对误差不超过 1%）")
+        private BigDecimal medianPrice;
+
+        @Schema(description = "单价 90 分位（估计值，相对误差不超过 1%）")
+        private BigDecimal p90Price;
+
+        @Schema(description = "评分直方图，固定 11 项（0-10）")
+        private List<DistributionBucket> ratings;
+
+        @Schema(description = "甜度分布，按杯数降序")
+        private List<DistributionBucket> sweetness;
+
+        @Schema(description = "冰度分布，按杯数降序")
+        private List<DistributionBucket> iceLevels;
+
+        @Schema(description = "统计周期开始日期")
+        private LocalDate startDate;
+
+        @Schema(description = "统计周期结束日期")
+        private LocalDate endDate;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "年度热力图响应")
+    public static class HeatmapResponse {
+        @Schema(description = "年份")
+        private Integer year;
+
+        @Schema(description = "counts 第 0 项对应的日期，即 1 月 1 日")
+        private LocalDate startDate;
+
+        @Schema(description = "全年每日杯数，按日期顺序，共 365 或 366 项")
+        private List<Integer> counts;
+
+        @Schema(description = "全年总杯数")
+        private Long totalCups;
+
+        @Schema(description = "全年消费天数")
+        private Long consumeDays;
+
+        @Schema(description = "单日最多杯数，可用于热力图配色")
+        private Integer maxDailyCups;
+
+        @Schema(description = "截至今天的连续消费天数，今天没有消费时从昨天起算")
+        private Integer currentStreak;
+
+        @Schema(description = "该年内最长连续消费天数")
+        private Integer longestStreak;
+
+        @Schema(description = "该年内最长连续消费的开始日期，没有消费时为 null")
+        private LocalDate longestStreakStart;
+
+        @Schema(description = "该年内最长连续消费的结束日期，没有消费时为 null")
+        private LocalDate longestStreakEnd;
+    }
 }
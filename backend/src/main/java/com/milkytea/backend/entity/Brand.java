@@ -26,7 +26,6 @@ public class Brand {
     @Column(length = 500)
     private String description;
 
-    @Lob
     @Column(name = "logo_url", columnDefinition = "TEXT")
     private String logoUrl;
 
@@ -2,7 +2,9 @@ package com.milkytea.backend.entity;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import javax.persistence.*;
 import javax.validation.constraints.*;
@@ -17,15 +19,23 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class MilkTeaRecord {
 
+    /**
+     * 序列按 50 个一段分配，批量插入时不必逐条取回自增 ID。
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "milk_tea_records_seq")
+    @SequenceGenerator(name = "milk_tea_records_seq", sequenceName = "milk_tea_records_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "brand_id", nullable = false)
     private Brand brand;
 
@@ -57,6 +67,12 @@ public class MilkTeaRecord {
     @Column(name = "consume_date", nullable = false)
     private LocalDate consumeDate;
 
+    /**
+     * 最近一次新增或修改时分配的用户内变更序号，供增量同步使用。
+     */
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq;
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,43 @@
+package com.milkytea.backend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 已删除记录的墓碑，供增量同步通知客户端删除本地副本，见 V6 迁移脚本。
+ */
+@Entity
+@Table(name = "record_tombstones")
+@IdClass(RecordTombstone.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecordTombstone {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    @Column(name = "record_id", nullable = false)
+    private Long recordId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private Long changeSeq;
+    }
+}
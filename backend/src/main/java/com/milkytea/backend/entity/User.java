@@ -35,10 +35,15 @@ public class User {
     @Column(nullable = false)
     private String password;
 
-    @Lob
     @Column(columnDefinition = "TEXT")
     private String avatar;
 
+    /**
+     * 写入令牌的版本号，修改密码或用户名时加一，使此前签发的令牌失效。
+     */
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion;
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,57 @@
+package com.milkytea.backend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * 用户每日按品牌的消费汇总，与 {@link UserDailyStats} 一同维护，金额单位为分。
+ */
+@Entity
+@Table(name = "user_daily_brand_stats")
+@IdClass(UserDailyBrandStats.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDailyBrandStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "consume_date")
+    private LocalDate consumeDate;
+
+    @Id
+    @Column(name = "brand_id")
+    private Long brandId;
+
+    @Column(nullable = false)
+    private Integer cups;
+
+    @Column(name = "amount_cents", nullable = false)
+    private Long amountCents;
+
+    @Column(name = "rating_sum", nullable = false)
+    private Long ratingSum;
+
+    @Column(name = "min_price_cents", nullable = false)
+    private Long minPriceCents;
+
+    @Column(name = "max_price_cents", nullable = false)
+    private Long maxPriceCents;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private LocalDate consumeDate;
+        private Long brandId;
+    }
+}
@@ -0,0 +1,49 @@
+package com.milkytea.backend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * 用户每日在某一维度某个桶内的杯数，维度与桶的含义见 V5 迁移脚本。
+ */
+@Entity
+@Table(name = "user_daily_distribution")
+@IdClass(UserDailyDistribution.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDailyDistribution {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "consume_date")
+    private LocalDate consumeDate;
+
+    @Id
+    @Column(length = 16)
+    private String dimension;
+
+    @Id
+    private String bucket;
+
+    @Column(nullable = false)
+    private Integer cups;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private LocalDate consumeDate;
+        private String dimension;
+        private String bucket;
+    }
+}
@@ -0,0 +1,14 @@
+package com.milkytea.backend.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 品牌新增或删除后发布。
+ */
+@Getter
+@RequiredArgsConstructor
+public class BrandChangedEvent {
+
+    private final Long brandId;
+}
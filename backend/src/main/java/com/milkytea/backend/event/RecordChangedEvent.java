@@ -0,0 +1,18 @@
+package com.milkytea.backend.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * 用户的记录发生增删改、每日汇总已重算后发布，dates 为汇总发生变化的日期。
+ */
+@Getter
+@RequiredArgsConstructor
+public class RecordChangedEvent {
+
+    private final Long userId;
+    private final Set<LocalDate> dates;
+}
@@ -0,0 +1,14 @@
+package com.milkytea.backend.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 用户的令牌版本变化（修改密码或用户名）后发布，此前签发的令牌随之失效。
+ */
+@Getter
+@RequiredArgsConstructor
+public class TokenVersionChangedEvent {
+
+    private final Long userId;
+}
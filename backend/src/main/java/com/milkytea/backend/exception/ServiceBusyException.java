@@ -0,0 +1,17 @@
+package com.milkytea.backend.exception;
+
+import lombok.Getter;
+
+/**
+ * 服务暂时无法处理请求，响应 503 并通过 Retry-After 告知客户端等待的秒数。
+ */
+@Getter
+public class ServiceBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
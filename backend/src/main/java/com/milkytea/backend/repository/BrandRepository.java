@@ -2,8 +2,11 @@ package com.milkytea.backend.repository;
 
 import com.milkytea.backend.entity.Brand;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +15,19 @@ public interface BrandRepository extends JpaRepository<Brand, Long> {
     Optional<Brand> findByName(String name);
 
     boolean existsByName(String name);
+
+    @Query("SELECT b.name FROM Brand b WHERE b.id = :id")
+    Optional<String> findNameById(@Param("id") Long id);
+
+    /**
+     * 只查询全部品牌的 ID 与名称，不读取 logo 等大字段。
+     */
+    @Query("SELECT b.id AS id, b.name AS name FROM Brand b")
+    List<BrandName> findAllNames();
+
+    interface BrandName {
+        Long getId();
+
+        String getName();
+    }
 }
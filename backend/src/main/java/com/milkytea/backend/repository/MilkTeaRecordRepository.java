@@ -1,37 +1,56 @@
 package com.milkytea.backend.repository;
 
 import com.milkytea.backend.entity.MilkTeaRecord;
-import com.milkytea.backend.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface MilkTeaRecordRepository extends JpaRepository<MilkTeaRecord, Long> {
+public interface MilkTeaRecordRepository extends JpaRepository<MilkTeaRecord, Long>,
+        JpaSpecificationExecutor<MilkTeaRecord>, MilkTeaRecordRepositoryCustom {
 
-    List<MilkTeaRecord> findByUserOrderByConsumeDateDesc(User user);
+    List<MilkTeaRecord> findByUserIdAndConsumeDateBetweenOrderByConsumeDateDesc(
+            Long userId, LocalDate startDate, LocalDate endDate);
 
-    List<MilkTeaRecord> findByUserAndConsumeDateBetweenOrderByConsumeDateDesc(
-            User user, LocalDate startDate, LocalDate endDate);
+    long countByUserIdAndConsumeDateBetween(Long userId, LocalDate startDate, LocalDate endDate);
 
-    @Query("SELECT r FROM MilkTeaRecord r WHERE r.user = :user AND " +
-            "YEAR(r.consumeDate) = :year AND MONTH(r.consumeDate) = :month " +
-            "ORDER BY r.consumeDate DESC")
-    List<MilkTeaRecord> findByUserAndYearAndMonth(
-            @Param("user") User user,
-            @Param("year") int year,
-            @Param("month") int month);
+    /**
+     * 归属校验作为查询条件，其他用户的记录与不存在的记录一样查不到。
+     */
+    Optional<MilkTeaRecord> findByIdAndUserId(Long id, Long userId);
 
-    long countByUserAndConsumeDateBetween(User user, LocalDate startDate, LocalDate endDate);
+    List<MilkTeaRecord> findByUserIdAndIdIn(Long userId, Collection<Long> ids);
 
-    @Query("SELECT COUNT(DISTINCT r.consumeDate) FROM MilkTeaRecord r " +
-            "WHERE r.user = :user AND r.consumeDate BETWEEN :startDate AND :endDate")
-    long countDistinctDaysByUserAndConsumeDateBetween(
-            @Param("user") User user,
-            @Param("startDate") LocalDate startDate,
-            @Param("endDate") LocalDate endDate);
+    /**
+     * 按品牌分组聚合某用户某一天的记录，供每日汇总表重算该日数据。
+     */
+    @Query("SELECT r.brand.id AS brandId, COUNT(r) AS cups, SUM(r.price) AS amount, " +
+            "SUM(r.rating) AS ratingSum, MIN(r.price) AS minPrice, MAX(r.price) AS maxPrice " +
+            "FROM MilkTeaRecord r WHERE r.user.id = :userId AND r.consumeDate = :date " +
+            "GROUP BY r.brand.id")
+    List<DayBrandAggregate> aggregateDayByBrand(
+            @Param("userId") Long userId,
+            @Param("date") LocalDate date);
+
+    interface DayBrandAggregate {
+        Long getBrandId();
+
+        long getCups();
+
+        BigDecimal getAmount();
+
+        long getRatingSum();
+
+        BigDecimal getMinPrice();
+
+        BigDecimal getMaxPrice();
+    }
 }
@@ -0,0 +1,35 @@
+package com.milkytea.backend.repository;
+
+import com.milkytea.backend.dto.RecordDtos;
+import com.milkytea.backend.entity.MilkTeaRecord;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 记录列表查询直接投影为 {@link RecordDtos.RecordResponse}，
+ * 只读取品牌的 id 与名称，不加载用户和品牌实体。
+ */
+public interface MilkTeaRecordRepositoryCustom {
+
+    List<RecordDtos.RecordResponse> findResponses(Specification<MilkTeaRecord> spec, Sort sort);
+
+    /**
+     * 按条件和排序取前 limit 条记录，只生成 LIMIT 查询，不附带 COUNT。
+     */
+    List<RecordDtos.RecordResponse> findResponses(Specification<MilkTeaRecord> spec, Sort sort, int limit);
+
+    Page<RecordDtos.RecordResponse> findResponses(Specification<MilkTeaRecord> spec, Pageable pageable);
+
+    /**
+     * 按消费日期、ID 降序逐行回调用户在 [startDate, endDate] 内的记录，日期为空时不限制。
+     * 结果集只向前读取，不加载实体，也不在内存中保留已回调的记录，供导出使用。
+     */
+    void scanResponses(Long userId, LocalDate startDate, LocalDate endDate,
+                       Consumer<RecordDtos.RecordResponse> handler);
+}
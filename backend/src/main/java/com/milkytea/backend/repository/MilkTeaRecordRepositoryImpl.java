@@ -0,0 +1,170 @@
+package com.milkytea.backend.repository;
+
+import com.milkytea.backend.dto.RecordDtos;
+import com.milkytea.backend.entity.Brand;
+import com.milkytea.backend.entity.MilkTeaRecord;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+@RequiredArgsConstructor
+class MilkTeaRecordRepositoryImpl implements MilkTeaRecordRepositoryCustom {
+
+    private static final String SCAN_RESPONSES_SQL = "SELECT r.id, r.brand_id, b.name, r.category, r.sweetness, "
+            + "r.ice_level, r.price, r.rating, r.comment, r.consume_date, r.created_at, r.updated_at, r.change_seq "
+            + "FROM milk_tea_records r USE INDEX (idx_records_user_date_id) "
+            + "JOIN brands b ON b.id = r.brand_id WHERE r.user_id = ?";
+
+    private static final int SCAN_FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<RecordDtos.RecordResponse> findResponses(Specification<MilkTeaRecord> spec, Sort sort) {
+        return createResponseQuery(spec, sort).getResultList();
+    }
+
+    @Override
+    public List<RecordDtos.RecordResponse> findResponses(Specification<MilkTeaRecord> spec, Sort sort, int limit) {
+        return createResponseQuery(spec, sort)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Page<RecordDtos.RecordResponse> findResponses(Specification<MilkTeaRecord> spec, Pageable pageable) {
+        List<RecordDtos.RecordResponse> content = createResponseQuery(spec, pageable.getSort())
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    @Override
+    public void scanResponses(Long userId, LocalDate startDate, LocalDate endDate,
+                              Consumer<RecordDtos.RecordResponse> handler) {
+        StringBuilder sql = new StringBuilder(SCAN_RESPONSES_SQL);
+        List<Object> args = new ArrayList<>();
+        args.add(userId);
+        if (startDate != null) {
+            sql.append(" AND r.consume_date >= ?");
+            args.add(startDate);
+        }
+        if (endDate != null) {
+            sql.append(" AND r.consume_date <= ?");
+            args.add(endDate);
+        }
+        // 排序列与索引列完全一致（含 user_id）时 H2 才按索引顺序读取，不再整体排序
+        sql.append(" ORDER BY r.user_id, r.consume_date DESC, r.id DESC");
+
+        // H2 默认先物化整个结果集（超出内存阈值时写入临时文件）再返回第一行，
+        // 导出时在本连接上开启延迟执行，边读边写，结束后恢复默认
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement session = connection.createStatement()) {
+                session.execute("SET LAZY_QUERY_EXECUTION TRUE");
+                try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                    statement.setFetchSize(SCAN_FETCH_SIZE);
+                    for (int i = 0; i < args.size(); i++) {
+                        statement.setObject(i + 1, args.get(i));
+                    }
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            handler.accept(toResponse(rs));
+                        }
+                    }
+                } finally {
+                    session.execute("SET LAZY_QUERY_EXECUTION FALSE");
+                }
+            }
+            return null;
+        });
+    }
+
+    private static RecordDtos.RecordResponse toResponse(ResultSet rs) throws SQLException {
+        return new RecordDtos.RecordResponse(
+                rs.getLong(1),
+                rs.getLong(2),
+                rs.getString(3),
+                rs.getString(4),
+                rs.getString(5),
+                rs.getString(6),
+                rs.getBigDecimal(7),
+                rs.getInt(8),
+                rs.getString(9),
+                rs.getObject(10, LocalDate.class),
+                rs.getObject(11, LocalDateTime.class),
+                rs.getObject(12, LocalDateTime.class),
+                rs.getLong(13));
+    }
+
+    private TypedQuery<RecordDtos.RecordResponse> createResponseQuery(Specification<MilkTeaRecord> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<RecordDtos.RecordResponse> query = cb.createQuery(RecordDtos.RecordResponse.class);
+        Root<MilkTeaRecord> root = query.from(MilkTeaRecord.class);
+        Join<MilkTeaRecord, Brand> brand = root.join("brand");
+
+        query.select(cb.construct(RecordDtos.RecordResponse.class,
+                root.get("id"),
+                brand.get("id"),
+                brand.get("name"),
+                root.get("category"),
+                root.get("sweetness"),
+                root.get("iceLevel"),
+                root.get("price"),
+                root.get("rating"),
+                root.get("comment"),
+                root.get("consumeDate"),
+                root.get("createdAt"),
+                root.get("updatedAt"),
+                root.get("changeSeq")));
+
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(toOrders(sort, root, cb));
+
+        return entityManager.createQuery(query);
+    }
+
+    private long count(Specification<MilkTeaRecord> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<MilkTeaRecord> root = query.from(MilkTeaRecord.class);
+        query.select(cb.count(root));
+
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -0,0 +1,86 @@
+package com.milkytea.backend.repository;
+
+import com.milkytea.backend.entity.MilkTeaRecord;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+
+/**
+ * 奶茶记录查询条件，供 {@link MilkTeaRecordRepository} 组合成 SQL 谓词。
+ * 参数为空时返回 null，{@link Specification#and} 会直接忽略该条件。
+ */
+public final class RecordSpecifications {
+
+    private RecordSpecifications() {
+    }
+
+    /**
+     * 直接比较外键列，不关联用户表。
+     */
+    public static Specification<MilkTeaRecord> belongsTo(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    public static Specification<MilkTeaRecord> consumedOn(LocalDate date) {
+        if (date == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("consumeDate"), date);
+    }
+
+    public static Specification<MilkTeaRecord> consumedOnOrAfter(LocalDate startDate) {
+        if (startDate == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("consumeDate"), startDate);
+    }
+
+    public static Specification<MilkTeaRecord> consumedOnOrBefore(LocalDate endDate) {
+        if (endDate == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("consumeDate"), endDate);
+    }
+
+    public static Specification<MilkTeaRecord> hasBrand(Long brandId) {
+        if (brandId == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("brand").get("id"), brandId);
+    }
+
+    /**
+     * 键集分页的定位条件：排在 (consumeDate, id) 之后的记录，
+     * 与 consume_date DESC, id DESC 的排序配合使用。
+     */
+    public static Specification<MilkTeaRecord> seekAfter(LocalDate consumeDate, Long id) {
+        if (consumeDate == null || id == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("consumeDate"), consumeDate),
+                cb.and(
+                        cb.equal(root.get("consumeDate"), consumeDate),
+                        cb.lessThan(root.get("id"), id)));
+    }
+
+    /**
+     * 变更序号位于 (since, upTo] 之间的记录，与 change_seq 升序配合使用。
+     */
+    public static Specification<MilkTeaRecord> changedBetween(long since, long upTo) {
+        return (root, query, cb) -> cb.and(
+                cb.greaterThan(root.get("changeSeq"), since),
+                cb.lessThanOrEqualTo(root.get("changeSeq"), upTo));
+    }
+
+    public static Specification<MilkTeaRecord> categoryContains(String category) {
+        if (category == null || category.isEmpty()) {
+            return null;
+        }
+        String pattern = "%" + category
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        return (root, query, cb) -> cb.like(root.get("category"), pattern, '\\');
+    }
+}
@@ -0,0 +1,26 @@
+package com.milkytea.backend.repository;
+
+import com.milkytea.backend.entity.RecordTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RecordTombstoneRepository extends JpaRepository<RecordTombstone, RecordTombstone.Key> {
+
+    /**
+     * 按变更序号升序返回 (since, upTo] 之间的墓碑，条数由 pageable 限制。
+     */
+    @Query("SELECT t FROM RecordTombstone t " +
+            "WHERE t.userId = :userId AND t.changeSeq > :since AND t.changeSeq <= :upTo " +
+            "ORDER BY t.changeSeq")
+    List<RecordTombstone> findChanges(
+            @Param("userId") Long userId,
+            @Param("since") long since,
+            @Param("upTo") long upTo,
+            Pageable pageable);
+}
@@ -0,0 +1,77 @@
+package com.milkytea.backend.repository;
+
+import com.milkytea.backend.entity.UserDailyBrandStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface UserDailyBrandStatsRepository
+        extends JpaRepository<UserDailyBrandStats, UserDailyBrandStats.Key>, UserDailyBrandStatsRepositoryCustom {
+
+    List<UserDailyBrandStats> findByUserIdAndConsumeDate(Long userId, LocalDate consumeDate);
+
+    /**
+     * 按品牌汇总统计周期内的每日数据，按杯数降序。
+     */
+    @Query("SELECT s.brandId AS brandId, b.name AS brandName, SUM(s.cups) AS count, " +
+            "SUM(s.amountCents) AS amountCents, SUM(s.ratingSum) AS ratingSum " +
+            "FROM UserDailyBrandStats s JOIN Brand b ON b.id = s.brandId " +
+            "WHERE s.userId = :userId AND s.consumeDate BETWEEN :startDate AND :endDate " +
+            "GROUP BY s.brandId, b.name ORDER BY SUM(s.cups) DESC, s.brandId")
+    List<BrandSummary> summarizeByBrand(
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    /**
+     * 由记录表重新生成全部品牌每日汇总，调用前需先清空本表。
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_daily_brand_stats " +
+            "(user_id, consume_date, brand_id, cups, amount_cents, rating_sum, min_price_cents, max_price_cents) " +
+            "SELECT user_id, consume_date, brand_id, COUNT(*), CAST(SUM(price) * 100 AS BIGINT), SUM(rating), " +
+            "CAST(MIN(price) * 100 AS BIGINT), CAST(MAX(price) * 100 AS BIGINT) " +
+            "FROM milk_tea_records GROUP BY user_id, consume_date, brand_id", nativeQuery = true)
+    int insertFromRecords();
+
+    @Modifying
+    @Query(value = "DELETE FROM user_daily_brand_stats WHERE user_id = :userId" +
+            " AND consume_date BETWEEN :startDate AND :endDate", nativeQuery = true)
+    int deleteRange(
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    /**
+     * 由记录表重新生成某用户一段日期内的品牌每日汇总，调用前需先删除该区间的旧数据。
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_daily_brand_stats " +
+            "(user_id, consume_date, brand_id, cups, amount_cents, rating_sum, min_price_cents, max_price_cents) " +
+            "SELECT user_id, consume_date, brand_id, COUNT(*), CAST(SUM(price) * 100 AS BIGINT), SUM(rating), " +
+            "CAST(MIN(price) * 100 AS BIGINT), CAST(MAX(price) * 100 AS BIGINT) " +
+            "FROM milk_tea_records WHERE user_id = :userId AND consume_date BETWEEN :startDate AND :endDate GROUP BY user_id, consume_date, brand_id",
+            nativeQuery = true)
+    int insertRangeFromRecords(
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    interface BrandSummary {
+        Long getBrandId();
+
+        String getBrandName();
+
+        long getCount();
+
+        long getAmountCents();
+
+        long getRatingSum();
+    }
+}
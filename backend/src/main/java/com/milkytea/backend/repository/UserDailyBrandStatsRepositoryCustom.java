@@ -0,0 +1,20 @@
+package com.milkytea.backend.repository;
+
+import java.time.LocalDate;
+
+/**
+ * 按日期顺序逐行回调品牌每日汇总，不创建实体或投影对象，供统计内核直接累加到基本类型数组。
+ */
+public interface UserDailyBrandStatsRepositoryCustom {
+
+    /**
+     * 扫描 [startInclusive, endExclusive) 内的品牌每日汇总及品牌名称。
+     */
+    void scanDayBrandRows(Long userId, LocalDate startInclusive, LocalDate endExclusive, DayBrandRowHandler handler);
+
+    @FunctionalInterface
+    interface DayBrandRowHandler {
+        void accept(int epochDay, long brandId, String brandName, int cups, long amountCents,
+                    long ratingSum, long minPriceCents, long maxPriceCents);
+    }
+}
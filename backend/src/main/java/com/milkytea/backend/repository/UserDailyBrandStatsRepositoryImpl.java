@@ -0,0 +1,32 @@
+package com.milkytea.backend.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.time.LocalDate;
+
+@RequiredArgsConstructor
+class UserDailyBrandStatsRepositoryImpl implements UserDailyBrandStatsRepositoryCustom {
+
+    private static final String SCAN_DAY_BRAND_ROWS_SQL = "SELECT s.consume_date, s.brand_id, b.name, s.cups, "
+            + "s.amount_cents, s.rating_sum, s.min_price_cents, s.max_price_cents "
+            + "FROM user_daily_brand_stats s JOIN brands b ON b.id = s.brand_id "
+            + "WHERE s.user_id = ? AND s.consume_date >= ? AND s.consume_date < ? ORDER BY s.consume_date";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void scanDayBrandRows(
+            Long userId, LocalDate startInclusive, LocalDate endExclusive, DayBrandRowHandler handler) {
+        jdbcTemplate.query(SCAN_DAY_BRAND_ROWS_SQL, (RowCallbackHandler) rs -> handler.accept(
+                (int) rs.getObject(1, LocalDate.class).toEpochDay(),
+                rs.getLong(2),
+                rs.getString(3),
+                rs.getInt(4),
+                rs.getLong(5),
+                rs.getLong(6),
+                rs.getLong(7),
+                rs.getLong(8)), userId, startInclusive, endExclusive);
+    }
+}
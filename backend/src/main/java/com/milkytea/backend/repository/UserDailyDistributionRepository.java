@@ -0,0 +1,115 @@
+package com.milkytea.backend.repository;
+
+import com.milkytea.backend.entity.UserDailyDistribution;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface UserDailyDistributionRepository
+        extends JpaRepository<UserDailyDistribution, UserDailyDistribution.Key> {
+
+    /**
+     * 单价的 DDSketch 桶下标，与 V5 迁移脚本及 PriceSketch 保持一致。
+     */
+    String PRICE_BUCKET = "CASE WHEN price <= 0 THEN '0' "
+            + "ELSE CAST(CAST(CEILING(LN(price * 100) / LN(1.01 / 0.99)) AS INTEGER) + 1 AS VARCHAR) END";
+
+    String INSERT_COLUMNS = "INSERT INTO user_daily_distribution (user_id, consume_date, dimension, bucket, cups) ";
+
+    String DAY_FILTER = " WHERE user_id = :userId AND consume_date = :date ";
+
+    String RANGE_FILTER = " WHERE user_id = :userId AND consume_date BETWEEN :startDate AND :endDate ";
+
+    /**
+     * 按维度与桶合并统计周期内的每日分布。
+     */
+    @Query("SELECT d.dimension AS dimension, d.bucket AS bucket, SUM(d.cups) AS cups " +
+            "FROM UserDailyDistribution d " +
+            "WHERE d.userId = :userId AND d.consumeDate BETWEEN :startDate AND :endDate " +
+            "GROUP BY d.dimension, d.bucket")
+    List<BucketCount> summarize(
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_daily_distribution WHERE user_id = :userId AND consume_date = :date",
+            nativeQuery = true)
+    int deleteDay(@Param("userId") Long userId, @Param("date") LocalDate date);
+
+    /**
+     * 由记录表生成某用户某一天的分布，调用前需先删除当天的旧数据。
+     */
+    @Modifying
+    @Query(value = INSERT_COLUMNS
+            + "SELECT user_id, consume_date, 'rating', CAST(rating AS VARCHAR), COUNT(*) FROM milk_tea_records"
+            + DAY_FILTER + "GROUP BY user_id, consume_date, rating "
+            + "UNION ALL SELECT user_id, consume_date, 'sweetness', sweetness, COUNT(*) FROM milk_tea_records"
+            + DAY_FILTER + "GROUP BY user_id, consume_date, sweetness "
+            + "UNION ALL SELECT user_id, consume_date, 'ice_level', ice_level, COUNT(*) FROM milk_tea_records"
+            + DAY_FILTER + "GROUP BY user_id, consume_date, ice_level "
+            + "UNION ALL SELECT user_id, consume_date, 'price', bucket, COUNT(*) FROM "
+            + "(SELECT user_id, consume_date, " + PRICE_BUCKET + " AS bucket FROM milk_tea_records"
+            + DAY_FILTER + ") p GROUP BY user_id, consume_date, bucket",
+            nativeQuery = true)
+    int insertDayFromRecords(@Param("userId") Long userId, @Param("date") LocalDate date);
+
+    /**
+     * 由记录表重新生成全部每日分布，调用前需先清空本表。
+     */
+    @Modifying
+    @Query(value = INSERT_COLUMNS
+            + "SELECT user_id, consume_date, 'rating', CAST(rating AS VARCHAR), COUNT(*) FROM milk_tea_records "
+            + "GROUP BY user_id, consume_date, rating "
+            + "UNION ALL SELECT user_id, consume_date, 'sweetness', sweetness, COUNT(*) FROM milk_tea_records "
+            + "GROUP BY user_id, consume_date, sweetness "
+            + "UNION ALL SELECT user_id, consume_date, 'ice_level', ice_level, COUNT(*) FROM milk_tea_records "
+            + "GROUP BY user_id, consume_date, ice_level "
+            + "UNION ALL SELECT user_id, consume_date, 'price', bucket, COUNT(*) FROM "
+            + "(SELECT user_id, consume_date, " + PRICE_BUCKET + " AS bucket FROM milk_tea_records) p "
+            + "GROUP BY user_id, consume_date, bucket",
+            nativeQuery = true)
+    int insertFromRecords();
+
+    @Modifying
+    @Query(value = "DELETE FROM user_daily_distribution WHERE user_id = :userId" +
+            " AND consume_date BETWEEN :startDate AND :endDate", nativeQuery = true)
+    int deleteRange(
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    /**
+     * 由记录表重新生成某用户一段日期内的每日分布，调用前需先删除该区间的旧数据。
+     */
+    @Modifying
+    @Query(value = INSERT_COLUMNS
+            + "SELECT user_id, consume_date, 'rating', CAST(rating AS VARCHAR), COUNT(*) FROM milk_tea_records"
+            + RANGE_FILTER + "GROUP BY user_id, consume_date, rating "
+            + "UNION ALL SELECT user_id, consume_date, 'sweetness', sweetness, COUNT(*) FROM milk_tea_records"
+            + RANGE_FILTER + "GROUP BY user_id, consume_date, sweetness "
+            + "UNION ALL SELECT user_id, consume_date, 'ice_level', ice_level, COUNT(*) FROM milk_tea_records"
+            + RANGE_FILTER + "GROUP BY user_id, consume_date, ice_level "
+            + "UNION ALL SELECT user_id, consume_date, 'price', bucket, COUNT(*) FROM "
+            + "(SELECT user_id, consume_date, " + PRICE_BUCKET + " AS bucket FROM milk_tea_records"
+            + RANGE_FILTER + ") p GROUP BY user_id, consume_date, bucket",
+            nativeQuery = true)
+    int insertRangeFromRecords(
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    interface BucketCount {
+        String getDimension();
+
+        String getBucket();
+
+        long getCups();
+    }
+}
@@ -0,0 +1,74 @@
+package com.milkytea.backend.repository;
+
+import com.milkytea.backend.entity.UserDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface UserDailyStatsRepository extends JpaRepository<UserDailyStats, UserDailyStats.Key>,
+        UserDailyStatsRepositoryCustom {
+
+    /**
+     * 汇总统计周期内的每日数据，没有记录时除天数外的字段均为 null。
+     */
+    @Query("SELECT SUM(s.cups) AS totalCups, COUNT(s) AS totalDays, SUM(s.amountCents) AS amountCents, " +
+            "SUM(s.ratingSum) AS ratingSum, MIN(s.minPriceCents) AS minPriceCents, " +
+            "MAX(s.maxPriceCents) AS maxPriceCents FROM UserDailyStats s " +
+            "WHERE s.userId = :userId AND s.consumeDate BETWEEN :startDate AND :endDate")
+    RangeSummary summarize(
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    /**
+     * 由记录表重新生成全部每日汇总，调用前需先清空本表。
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_daily_stats " +
+            "(user_id, consume_date, cups, amount_cents, rating_sum, min_price_cents, max_price_cents) " +
+            "SELECT user_id, consume_date, COUNT(*), CAST(SUM(price) * 100 AS BIGINT), SUM(rating), " +
+            "CAST(MIN(price) * 100 AS BIGINT), CAST(MAX(price) * 100 AS BIGINT) " +
+            "FROM milk_tea_records GROUP BY user_id, consume_date", nativeQuery = true)
+    int insertFromRecords();
+
+    @Modifying
+    @Query(value = "DELETE FROM user_daily_stats WHERE user_id = :userId" +
+            " AND consume_date BETWEEN :startDate AND :endDate", nativeQuery = true)
+    int deleteRange(
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    /**
+     * 由记录表重新生成某用户一段日期内的每日汇总，调用前需先删除该区间的旧数据。
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_daily_stats " +
+            "(user_id, consume_date, cups, amount_cents, rating_sum, min_price_cents, max_price_cents) " +
+            "SELECT user_id, consume_date, COUNT(*), CAST(SUM(price) * 100 AS BIGINT), SUM(rating), " +
+            "CAST(MIN(price) * 100 AS BIGINT), CAST(MAX(price) * 100 AS BIGINT) " +
+            "FROM milk_tea_records WHERE user_id = :userId AND consume_date BETWEEN :startDate AND :endDate GROUP BY user_id, consume_date", nativeQuery = true)
+    int insertRangeFromRecords(
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    interface RangeSummary {
+        Long getTotalCups();
+
+        long getTotalDays();
+
+        Long getAmountCents();
+
+        Long getRatingSum();
+
+        Long getMinPriceCents();
+
+        Long getMaxPriceCents();
+    }
+}
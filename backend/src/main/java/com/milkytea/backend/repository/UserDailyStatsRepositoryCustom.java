@@ -0,0 +1,24 @@
+package com.milkytea.backend.repository;
+
+import java.time.LocalDate;
+
+/**
+ * 按日期顺序逐行回调每日汇总，不创建实体或投影对象，供统计内核直接累加到基本类型数组。
+ */
+public interface UserDailyStatsRepositoryCustom {
+
+    /**
+     * 扫描 [startInclusive, endExclusive) 内有消费的日期。
+     */
+    void scanDays(Long userId, LocalDate startInclusive, LocalDate endExclusive, DayRowHandler handler);
+
+    /**
+     * 扫描用户全部有消费的日期。
+     */
+    void scanAllDays(Long userId, DayRowHandler handler);
+
+    @FunctionalInterface
+    interface DayRowHandler {
+        void accept(int epochDay, int cups, long amountCents, long ratingSum, long minPriceCents, long maxPriceCents);
+    }
+}
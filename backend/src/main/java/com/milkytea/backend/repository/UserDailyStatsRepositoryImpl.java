@@ -0,0 +1,40 @@
+package com.milkytea.backend.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.time.LocalDate;
+
+@RequiredArgsConstructor
+class UserDailyStatsRepositoryImpl implements UserDailyStatsRepositoryCustom {
+
+    private static final String SCAN_DAYS_SQL = "SELECT consume_date, cups, amount_cents, rating_sum, "
+            + "min_price_cents, max_price_cents FROM user_daily_stats "
+            + "WHERE user_id = ? AND consume_date >= ? AND consume_date < ? ORDER BY consume_date";
+
+    private static final String SCAN_ALL_DAYS_SQL = "SELECT consume_date, cups, amount_cents, rating_sum, "
+            + "min_price_cents, max_price_cents FROM user_daily_stats WHERE user_id = ? ORDER BY consume_date";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void scanDays(Long userId, LocalDate startInclusive, LocalDate endExclusive, DayRowHandler handler) {
+        jdbcTemplate.query(SCAN_DAYS_SQL, rowHandler(handler), userId, startInclusive, endExclusive);
+    }
+
+    @Override
+    public void scanAllDays(Long userId, DayRowHandler handler) {
+        jdbcTemplate.query(SCAN_ALL_DAYS_SQL, rowHandler(handler), userId);
+    }
+
+    private static RowCallbackHandler rowHandler(DayRowHandler handler) {
+        return rs -> handler.accept(
+                (int) rs.getObject(1, LocalDate.class).toEpochDay(),
+                rs.getInt(2),
+                rs.getLong(3),
+                rs.getLong(4),
+                rs.getLong(5),
+                rs.getLong(6));
+    }
+}
@@ -2,6 +2,9 @@ package com.milkytea.backend.repository;
 
 import com.milkytea.backend.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -13,7 +16,44 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByPhone(String phone);
 
+    /**
+     * 只查询用户 ID，不读取头像等大字段。
+     */
+    @Query("SELECT u.id FROM User u WHERE u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+
     boolean existsByUsername(String username);
 
     boolean existsByPhone(String phone);
+
+    /**
+     * 锁定用户行直到事务结束，用于串行化同一用户的汇总数据维护。
+     */
+    @Query(value = "SELECT id FROM users WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Long lockById(@Param("id") Long id);
+
+    /**
+     * 为用户分配 count 个记录变更序号，同时锁定用户行直到事务结束，
+     * 同一用户的变更按序号顺序提交。
+     */
+    @Modifying
+    @Query(value = "UPDATE users SET record_change_seq = record_change_seq + :count WHERE id = :id",
+            nativeQuery = true)
+    int advanceRecordChangeSeq(@Param("id") Long id, @Param("count") int count);
+
+    @Query(value = "SELECT record_change_seq FROM users WHERE id = :id", nativeQuery = true)
+    long findRecordChangeSeq(@Param("id") Long id);
+
+    /**
+     * 只查询令牌版本，用于校验令牌是否已被撤销。
+     */
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    /**
+     * 只替换密码哈希，用于登录时按新的 BCrypt 成本重新哈希，不更新修改时间。
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.username = :username")
+    int updatePasswordByUsername(@Param("username") String username, @Param("password") String password);
 }
@@ -1,31 +1,43 @@
 package com.milkytea.backend.security;
 
+import com.milkytea.backend.repository.UserRepository;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
 
-    private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
+    private static final List<GrantedAuthority> USER_AUTHORITIES = AuthorityUtils.createAuthorityList("USER");
 
-    public JwtAuthFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
-        this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
+    private final JwtVerifier jwtVerifier;
+    private final TokenVersionCache tokenVersionCache;
+    private final UserRepository userRepository;
+    private final boolean trustClaims;
+
+    public JwtAuthFilter(
+            JwtVerifier jwtVerifier,
+            TokenVersionCache tokenVersionCache,
+            UserRepository userRepository,
+            @Value("${app.jwt.trust-claims:true}") boolean trustClaims) {
+        this.jwtVerifier = jwtVerifier;
+        this.tokenVersionCache = tokenVersionCache;
+        this.userRepository = userRepository;
+        this.trustClaims = trustClaims;
     }
 
     @Override
@@ -33,28 +45,32 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             @NonNull HttpServletResponse response,
             @NonNull FilterChain filterChain) throws ServletException, IOException {
         final String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
-        String token = null;
-        String username = null;
+        JwtPrincipal principal = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            if (jwtUtil.validateToken(token)) {
-                username = jwtUtil.getUsernameFromToken(token);
-            }
+            // 签名与有效期只校验一次，之后直接使用解析结果
+            principal = jwtVerifier.verify(authHeader.substring(7));
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            try {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                if (jwtUtil.validateToken(token)) {
-                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities());
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                }
-            } catch (UsernameNotFoundException e) {
-                // token 中包含的用户名在当前系统中不存在（例如 token 过期或用户被删除），
-                // 忽略该异常，让请求继续而不是抛出 500 错误。后续接口应自行判断权限。
+        // 签发的令牌都带有 userId，没有 userId 的令牌无法做撤销检查，一律不认证
+        if (principal != null && principal.getUsername() != null && principal.getUserId() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            Long userId = principal.getUserId();
+            // 早期签发的令牌没有令牌版本，都签发于版本 0
+            int tokenVersion = principal.getTokenVersion() != null ? principal.getTokenVersion() : 0;
+            if (!trustClaims && !userRepository.findIdByUsername(principal.getUsername())
+                    .filter(userId::equals)
+                    .isPresent()) {
+                // 未启用时按用户名确认用户存在且与令牌中的 userId 一致
+                principal = null;
+            }
+            // 令牌已撤销（版本落后）或用户已删除时不设置认证信息；
+            // 其余情况令牌已签名，直接以其中的用户信息作为身份，不查询用户
+            if (principal != null && tokenVersionCache.isCurrent(userId, tokenVersion)) {
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        principal, null, USER_AUTHORITIES);
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
             }
         }
 
@@ -0,0 +1,33 @@
+package com.milkytea.backend.security;
+
+import lombok.Value;
+
+import java.security.Principal;
+import java.time.Instant;
+
+/**
+ * 由令牌解析出的身份信息，解析后不再变化，可以在请求之间共享。
+ * 认证通过后作为当前请求的 principal，控制器用 {@code @AuthenticationPrincipal} 取得用户 ID。
+ */
+@Value
+public class JwtPrincipal implements Principal {
+
+    String username;
+
+    /**
+     * 令牌中的 userId，没有该声明的令牌不予认证，因此通过认证后总是有值。
+     */
+    Long userId;
+
+    /**
+     * 令牌版本，与用户当前版本不一致的令牌视为已撤销；早期签发的令牌没有该声明，按 0 处理。
+     */
+    Integer tokenVersion;
+
+    Instant expiresAt;
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -0,0 +1,89 @@
+package com.milkytea.backend.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * 令牌校验入口：每个令牌只做一次签名校验与解析，结果按令牌摘要缓存到令牌过期为止，
+ * 同一令牌的后续请求只需计算摘要并查表。缓存按 LRU 淘汰，不保存令牌原文。
+ */
+@Component
+public class JwtVerifier {
+
+    private final JwtUtil jwtUtil;
+    private final Cache<String, JwtPrincipal> verified;
+
+    public JwtVerifier(
+            JwtUtil jwtUtil,
+            MeterRegistry meterRegistry,
+            @Value("${app.jwt.cache.maximum-size:10000}") long maximumSize) {
+        this.jwtUtil = jwtUtil;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, JwtPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String digest, JwtPrincipal principal, long currentTime) {
+                        return Math.max(Duration.between(Instant.now(), principal.getExpiresAt()).toNanos(), 0);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String digest, JwtPrincipal principal,
+                            long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String digest, JwtPrincipal principal,
+                            long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "jwtVerification");
+    }
+
+    /**
+     * 返回令牌对应的身份，签名无效或已过期时返回 null。
+     */
+    public JwtPrincipal verify(String token) {
+        String digest = digest(token);
+        JwtPrincipal principal = verified.getIfPresent(digest);
+        if (principal != null) {
+            // 缓存按令牌过期时间淘汰，这里再比较一次，避免淘汰前的短暂窗口
+            return principal.getExpiresAt().isAfter(Instant.now()) ? principal : null;
+        }
+        try {
+            principal = jwtUtil.parse(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        // 没有过期时间的令牌不缓存，每次都重新校验
+        if (principal.getExpiresAt() != null) {
+            verified.put(digest, principal);
+        }
+        return principal;
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
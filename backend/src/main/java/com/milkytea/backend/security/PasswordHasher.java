@@ -0,0 +1,70 @@
+package com.milkytea.backend.security;
+
+import com.milkytea.backend.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 密码哈希与校验（BCrypt）专用的有界线程池，不占用处理请求的容器线程。
+ * 线程与队列都已占满时立即拒绝，由调用方返回 503，而不是让请求排队等待。
+ */
+@Component
+public class PasswordHasher {
+
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejected;
+    private final long retryAfterSeconds;
+
+    public PasswordHasher(
+            MeterRegistry meterRegistry,
+            @Value("${app.password.hashing.threads:0}") int threads,
+            @Value("${app.password.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${app.password.hashing.retry-after-seconds:1}") long retryAfterSeconds) {
+        // 未配置时与处理器数相同，BCrypt 是纯计算任务，更多线程不会更快
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.meterRegistry = meterRegistry;
+        this.rejected = meterRegistry.counter("password.hashing.rejected");
+        this.retryAfterSeconds = retryAfterSeconds;
+        new ExecutorServiceMetrics(executor, "passwordHashing", Tags.empty()).bindTo(meterRegistry);
+    }
+
+    /**
+     * 在哈希线程池中执行 task，耗时按 operation 记录到 password.hashing。
+     * 后续的 thenApply 等阶段在哈希线程上执行，应只做简短的数据库操作。
+     * 提交前不要在请求线程上查询数据库：open-in-view 会让取得的连接一直占用到异步请求结束，
+     * 排队的请求会耗尽连接池，因此查询也应放在 task 中。
+     *
+     * @throws ServiceBusyException 线程池已满
+     */
+    public <T> CompletableFuture<T> submit(String operation, Supplier<T> task) {
+        Supplier<T> timed = () -> meterRegistry.timer("password.hashing", "operation", operation).record(task);
+        try {
+            return CompletableFuture.supplyAsync(timed, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceBusyException("请求过多，请稍后重试", retryAfterSeconds);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,123 @@
+package com.milkytea.backend.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.milkytea.backend.exception.GlobalExceptionHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按路由分组限流，超出时返回 429 与 Retry-After：
+ * 认证接口（/api/auth/**）按客户端 IP，写操作（/api 下非 GET/HEAD/OPTIONS 请求）
+ * 与统计查询（GET /api/statistics/**）按已认证的用户 ID，各组使用独立的令牌桶。
+ * 其余请求与未认证的非认证接口请求不限流，后者由安全配置拒绝。
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final TokenBucketLimiter authLimiter;
+    private final TokenBucketLimiter writeLimiter;
+    private final TokenBucketLimiter statisticsLimiter;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(
+            MeterRegistry meterRegistry,
+            ObjectMapper objectMapper,
+            @Value("${app.rate-limit.enabled:true}") boolean enabled,
+            @Value("${app.rate-limit.maximum-size:100000}") long maximumSize,
+            @Value("${app.rate-limit.auth.capacity:10}") int authCapacity,
+            @Value("${app.rate-limit.auth.per-minute:20}") int authPerMinute,
+            @Value("${app.rate-limit.writes.capacity:60}") int writeCapacity,
+            @Value("${app.rate-limit.writes.per-minute:600}") int writePerMinute,
+            @Value("${app.rate-limit.statistics.capacity:60}") int statisticsCapacity,
+            @Value("${app.rate-limit.statistics.per-minute:300}") int statisticsPerMinute) {
+        this.enabled = enabled;
+        this.authLimiter = new TokenBucketLimiter("auth", authCapacity, authPerMinute, maximumSize, meterRegistry);
+        this.writeLimiter = new TokenBucketLimiter("writes", writeCapacity, writePerMinute, maximumSize, meterRegistry);
+        this.statisticsLimiter = new TokenBucketLimiter(
+                "statistics", statisticsCapacity, statisticsPerMinute, maximumSize, meterRegistry);
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+
+        String group = null;
+        TokenBucketLimiter limiter = null;
+        Object key = null;
+        if (path.startsWith("/api/auth/")) {
+            // 未登录，只能按 IP 区分；部署在反向代理之后时需配置 server.forward-headers-strategy
+            group = "auth";
+            limiter = authLimiter;
+            key = request.getRemoteAddr();
+        } else if (path.startsWith("/api/")) {
+            Long userId = currentUserId();
+            boolean read = "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+            if (userId != null && !read) {
+                group = "writes";
+                limiter = writeLimiter;
+                key = userId;
+            } else if (userId != null && path.startsWith("/api/statistics/")) {
+                group = "statistics";
+                limiter = statisticsLimiter;
+                key = userId;
+            }
+        }
+
+        if (limiter != null) {
+            long waitNanos = limiter.tryAcquire(key);
+            if (waitNanos > 0) {
+                meterRegistry.counter("rate.limit.rejected", "group", group).increment();
+                reject(response, waitNanos);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof JwtPrincipal) {
+            return ((JwtPrincipal) authentication.getPrincipal()).getUserId();
+        }
+        return null;
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        // 向上取整到秒，至少 1 秒
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), new GlobalExceptionHandler.ErrorResponse(
+                HttpStatus.TOO_MANY_REQUESTS.value(), "请求过于频繁，请稍后重试"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.milkytea.backend.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按键（用户 ID 或客户端 IP）的令牌桶，以 GCRA 方式实现：每个桶只保存“桶重新装满的时刻”，
+ * 取令牌是对该 AtomicLong 的一次 CAS，不加锁；不同键的桶互不竞争。
+ * 装满的桶与新建的桶等价，因此闲置超过装满所需时间的桶直接淘汰，不影响限流结果。
+ */
+public class TokenBucketLimiter {
+
+    /**
+     * 生成一个令牌所需的纳秒数。
+     */
+    private final long intervalNanos;
+
+    /**
+     * 空桶重新装满所需的纳秒数，即 capacity * intervalNanos。
+     */
+    private final long capacityNanos;
+
+    private final Cache<Object, AtomicLong> buckets;
+
+    /**
+     * @param capacity  桶容量，即允许的突发请求数
+     * @param perMinute 每分钟补充的令牌数
+     */
+    public TokenBucketLimiter(String name, int capacity, int perMinute, long maximumSize, MeterRegistry meterRegistry) {
+        if (capacity <= 0 || perMinute <= 0) {
+            throw new IllegalArgumentException("限流 " + name + " 的 capacity 与 per-minute 必须大于 0");
+        }
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / perMinute;
+        this.capacityNanos = intervalNanos * capacity;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(Duration.ofNanos(capacityNanos))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "rateLimit", "group", name);
+    }
+
+    /**
+     * 取一个令牌，成功时返回 0，否则返回桶中出现令牌前还需等待的纳秒数。
+     */
+    public long tryAcquire(Object key) {
+        AtomicLong fullAt = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        long now = System.nanoTime();
+        while (true) {
+            long current = fullAt.get();
+            // 已装满的桶从当前时刻起算
+            long next = Math.max(current, now) + intervalNanos;
+            long wait = next - now - capacityNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
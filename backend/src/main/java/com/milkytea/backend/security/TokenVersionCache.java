@@ -0,0 +1,52 @@
+package com.milkytea.backend.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.milkytea.backend.event.TokenVersionChangedEvent;
+import com.milkytea.backend.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * 按用户缓存当前的令牌版本，校验令牌时不必查询用户表。版本变化的事务提交后立即作废对应条目，
+ * 存活时间只是兜底，防止直接修改数据库等情况下长期使用旧版本。
+ */
+@Component
+public class TokenVersionCache {
+
+    private final UserRepository userRepository;
+    private final Cache<Long, Integer> versions;
+
+    public TokenVersionCache(
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.jwt.token-version.maximum-size:10000}") long maximumSize,
+            @Value("${app.jwt.token-version.ttl:10m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "tokenVersion");
+    }
+
+    /**
+     * 令牌版本与用户当前版本一致时返回 true，用户不存在时返回 false。
+     */
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        Integer current = versions.get(userId, id -> userRepository.findTokenVersionById(id).orElse(null));
+        return current != null && current == tokenVersion;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTokenVersionChanged(TokenVersionChangedEvent event) {
+        versions.invalidate(event.getUserId());
+    }
+}
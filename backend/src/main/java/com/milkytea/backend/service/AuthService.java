@@ -4,16 +4,16 @@ import com.milkytea.backend.dto.AuthDtos;
 import com.milkytea.backend.entity.User;
 import com.milkytea.backend.repository.UserRepository;
 import com.milkytea.backend.security.JwtUtil;
+import com.milkytea.backend.security.PasswordHasher;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -23,51 +23,75 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
+    private final PasswordHasher passwordHasher;
 
-    @Transactional
-    public AuthDtos.AuthResponse register(AuthDtos.RegisterRequest request) {
-        // 检查用户名是否已存在
-        if (userRepository.existsByUsername(request.getUsername())) {
-            throw new RuntimeException("用户名已存在");
-        }
+    /**
+     * 查重与哈希在 {@link PasswordHasher} 的线程池中执行，完成后在同一线程保存用户并签发令牌。
+     */
+    public CompletableFuture<AuthDtos.AuthResponse> register(AuthDtos.RegisterRequest request) {
+        return passwordHasher.submit("register", () -> {
+            // 检查用户名是否已存在
+            if (userRepository.existsByUsername(request.getUsername())) {
+                throw new RuntimeException("用户名已存在");
+            }
 
-        // 检查手机号是否已存在
-        if (userRepository.existsByPhone(request.getPhone())) {
-            throw new RuntimeException("手机号已被注册");
-        }
+            // 检查手机号是否已存在
+            if (userRepository.existsByPhone(request.getPhone())) {
+                throw new RuntimeException("手机号已被注册");
+            }
 
-        // 创建新用户
-        User user = new User();
-        user.setUsername(request.getUsername());
-        user.setPhone(request.getPhone());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+            return passwordEncoder.encode(request.getPassword());
+        }).thenApply(encodedPassword -> {
+            // 创建新用户
+            User user = new User();
+            user.setUsername(request.getUsername());
+            user.setPhone(request.getPhone());
+            user.setPassword(encodedPassword);
 
-        user = userRepository.save(user);
+            user = userRepository.save(user);
 
-        // 生成JWT令牌
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("userId", user.getId());
-        claims.put("phone", user.getPhone());
-        String token = jwtUtil.generateToken(user.getUsername(), claims);
+            // 生成JWT令牌
+            String token = generateToken(user);
 
-        return new AuthDtos.AuthResponse(token, user.getId(), user.getUsername(), user.getPhone());
+            return new AuthDtos.AuthResponse(token, user.getId(), user.getUsername(), user.getPhone());
+        });
     }
 
-    public AuthDtos.AuthResponse login(AuthDtos.LoginRequest request) {
-        // 根据手机号查找用户
-        User user = userRepository.findByPhone(request.getPhone())
-                .orElseThrow(() -> new RuntimeException("手机号或密码错误"));
+    /**
+     * 查找用户与凭证校验（含 BCrypt 成本变化后的重新哈希）在 {@link PasswordHasher} 的线程池中执行。
+     */
+    public CompletableFuture<AuthDtos.AuthResponse> login(AuthDtos.LoginRequest request) {
+        return passwordHasher.submit("login", () -> {
+            // 根据手机号查找用户
+            User user = userRepository.findByPhone(request.getPhone())
+                    .orElseThrow(() -> new RuntimeException("手机号或密码错误"));
+
+            // 验证用户凭证
+            authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(user.getUsername(), request.getPassword()));
+            return user;
+        }).thenApply(user -> {
+            // 生成JWT令牌
+            String token = generateToken(user);
 
-        // 验证用户凭证
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(user.getUsername(), request.getPassword()));
+            return new AuthDtos.AuthResponse(token, user.getId(), user.getUsername(), user.getPhone());
+        });
+    }
+
+    /**
+     * 按用户当前的用户名与令牌版本签发新令牌，用于修改用户名或密码之后。
+     */
+    public String issueToken(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("用户不存在"));
+        return generateToken(user);
+    }
 
-        // 生成JWT令牌
+    private String generateToken(User user) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", user.getId());
         claims.put("phone", user.getPhone());
-        String token = jwtUtil.generateToken(user.getUsername(), claims);
-
-        return new AuthDtos.AuthResponse(token, user.getId(), user.getUsername(), user.getPhone());
+        claims.put("tokenVersion", user.getTokenVersion());
+        return jwtUtil.generateToken(user.getUsername(), claims);
     }
 }
@@ -2,8 +2,10 @@ package com.milkytea.backend.service;
 
 import com.milkytea.backend.dto.BrandDtos;
 import com.milkytea.backend.entity.Brand;
+import com.milkytea.backend.event.BrandChangedEvent;
 import com.milkytea.backend.repository.BrandRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,6 +17,7 @@ import java.util.stream.Collectors;
 public class BrandService {
 
     private final BrandRepository brandRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public BrandDtos.BrandResponse createBrand(BrandDtos.CreateBrandRequest request) {
@@ -28,6 +31,7 @@ public class BrandService {
         brand.setLogoUrl(request.getLogoUrl());
 
         brand = brandRepository.save(brand);
+        eventPublisher.publishEvent(new BrandChangedEvent(brand.getId()));
 
         return convertToResponse(brand);
     }
@@ -50,6 +54,7 @@ public class BrandService {
             throw new RuntimeException("品牌不存在");
         }
         brandRepository.deleteById(id);
+        eventPublisher.publishEvent(new BrandChangedEvent(id));
     }
 
     private BrandDtos.BrandResponse convertToResponse(Brand brand) {
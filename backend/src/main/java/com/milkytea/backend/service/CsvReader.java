@@ -0,0 +1,90 @@
+package com.milkytea.backend.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按 RFC 4180 逐条读取 CSV：字段可用双引号包围，引号内可含逗号、换行与写两次的引号。
+ * 每次只在内存中保留当前一条记录，跳过文件开头的 BOM 与空行。
+ */
+final class CsvReader {
+
+    private static final int NONE = Integer.MIN_VALUE;
+
+    private final Reader reader;
+    private final StringBuilder field = new StringBuilder();
+    private int pushback = NONE;
+    private boolean started;
+
+    CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * 读取下一条记录，没有更多记录时返回 null。
+     */
+    List<String> readRecord() throws IOException {
+        int c = next();
+        while (c == '\r' || c == '\n') {
+            c = next();
+        }
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> record = new ArrayList<>();
+        boolean quoted = false;
+        field.setLength(0);
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("CSV 引号未闭合");
+                }
+                if (c == '"') {
+                    int after = next();
+                    if (after != '"') {
+                        quoted = false;
+                        c = after;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                record.add(field.toString());
+                if (c == '\r') {
+                    int after = next();
+                    if (after != '\n') {
+                        pushback = after;
+                    }
+                }
+                return record;
+            } else {
+                field.append((char) c);
+            }
+            c = next();
+        }
+    }
+
+    private int next() throws IOException {
+        if (pushback != NONE) {
+            int c = pushback;
+            pushback = NONE;
+            return c;
+        }
+        int c = reader.read();
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') {
+                c = reader.read();
+            }
+        }
+        return c;
+    }
+}
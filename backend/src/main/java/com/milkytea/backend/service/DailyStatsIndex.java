@@ -0,0 +1,313 @@
+package com.milkytea.backend.service;
+
+import com.milkytea.backend.dto.StatisticsDtos;
+import com.milkytea.backend.repository.UserDailyStatsRepositoryCustom;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 单个用户每日汇总的内存区间索引。
+ * 有消费的日期按升序存放，杯数、金额、评分与消费天数用树状数组维护前缀和，
+ * 最低、最高单价用线段树维护，任意日期区间的汇总与每个趋势分组的合计均为 O(log n)。
+ * 另以位图记录哪些日期有消费（第 i 位为 bitBase + i 日），连续打卡天数由按字扫描位图得到。
+ * 已有日期的变更为 O(log n) 的单点更新，新增日期需插入后重建，为 O(n)，n 为有消费的天数。
+ * 方法均已同步，可被查询与记录变更并发调用。
+ */
+final class DailyStatsIndex implements UserDailyStatsRepositoryCustom.DayRowHandler {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int size;
+    private int[] days = new int[INITIAL_CAPACITY];
+    private int[] cups = new int[INITIAL_CAPACITY];
+    private long[] cents = new long[INITIAL_CAPACITY];
+    private long[] ratingSums = new long[INITIAL_CAPACITY];
+    private long[] minPrices = new long[INITIAL_CAPACITY];
+    private long[] maxPrices = new long[INITIAL_CAPACITY];
+
+    // 树状数组，下标从 1 开始
+    private long[] cupsTree;
+    private long[] centsTree;
+    private long[] ratingTree;
+    private long[] dayCountTree;
+
+    // 线段树，叶子从 leafBase 开始
+    private int leafBase;
+    private long[] minTree;
+    private long[] maxTree;
+
+    private int bitBase;
+    private BitSet consumedDays = new BitSet();
+
+    /**
+     * 加载阶段按日期升序追加一天，全部追加后需调用 {@link #rebuild()}。
+     */
+    @Override
+    public synchronized void accept(int epochDay, int dayCups, long amountCents, long ratingSum,
+                                    long minPriceCents, long maxPriceCents) {
+        insertAt(size, epochDay, dayCups, amountCents, ratingSum, minPriceCents, maxPriceCents);
+    }
+
+    /**
+     * 用最新的当日汇总覆盖索引中的该日，当日已无消费时传 0 杯。
+     */
+    synchronized void update(int epochDay, int dayCups, long amountCents, long ratingSum,
+                             long minPriceCents, long maxPriceCents) {
+        int position = Arrays.binarySearch(days, 0, size, epochDay);
+        if (position < 0) {
+            if (dayCups == 0) {
+                return;
+            }
+            insertAt(-position - 1, epochDay, dayCups, amountCents, ratingSum, minPriceCents, maxPriceCents);
+            rebuild();
+            return;
+        }
+
+        addToTree(cupsTree, position, dayCups - cups[position]);
+        addToTree(centsTree, position, amountCents - cents[position]);
+        addToTree(ratingTree, position, ratingSum - ratingSums[position]);
+        addToTree(dayCountTree, position, (dayCups > 0 ? 1 : 0) - (cups[position] > 0 ? 1 : 0));
+        cups[position] = dayCups;
+        cents[position] = amountCents;
+        ratingSums[position] = ratingSum;
+        minPrices[position] = dayCups > 0 ? minPriceCents : Long.MAX_VALUE;
+        maxPrices[position] = dayCups > 0 ? maxPriceCents : Long.MIN_VALUE;
+        setLeaf(position);
+        consumedDays.set(epochDay - bitBase, dayCups > 0);
+    }
+
+    /**
+     * 由基础数组重建全部树，O(n)。
+     */
+    synchronized void rebuild() {
+        cupsTree = new long[size + 1];
+        centsTree = new long[size + 1];
+        ratingTree = new long[size + 1];
+        dayCountTree = new long[size + 1];
+        for (int i = 0; i < size; i++) {
+            cupsTree[i + 1] += cups[i];
+            centsTree[i + 1] += cents[i];
+            ratingTree[i + 1] += ratingSums[i];
+            dayCountTree[i + 1] += cups[i] > 0 ? 1 : 0;
+            int parent = (i + 1) + ((i + 1) & -(i + 1));
+            if (parent <= size) {
+                cupsTree[parent] += cupsTree[i + 1];
+                centsTree[parent] += centsTree[i + 1];
+                ratingTree[parent] += ratingTree[i + 1];
+                dayCountTree[parent] += dayCountTree[i + 1];
+            }
+        }
+
+        leafBase = Integer.highestOneBit(Math.max(size, 1) * 2 - 1);
+        minTree = new long[leafBase * 2];
+        maxTree = new long[leafBase * 2];
+        Arrays.fill(minTree, Long.MAX_VALUE);
+        Arrays.fill(maxTree, Long.MIN_VALUE);
+        System.arraycopy(minPrices, 0, minTree, leafBase, size);
+        System.arraycopy(maxPrices, 0, maxTree, leafBase, size);
+        for (int node = leafBase - 1; node > 0; node--) {
+            minTree[node] = Math.min(minTree[node * 2], minTree[node * 2 + 1]);
+            maxTree[node] = Math.max(maxTree[node * 2], maxTree[node * 2 + 1]);
+        }
+
+        bitBase = size > 0 ? days[0] : 0;
+        consumedDays = new BitSet(size > 0 ? days[size - 1] - bitBase + 1 : 0);
+        for (int i = 0; i < size; i++) {
+            if (cups[i] > 0) {
+                consumedDays.set(days[i] - bitBase);
+            }
+        }
+    }
+
+    /**
+     * 汇总 [startDate, endDate] 内的每日数据，结果与按日期区间查询数据库一致。
+     */
+    synchronized StatisticsDtos.SummaryResponse summarize(LocalDate startDate, LocalDate endDate) {
+        int from = lowerBound((int) startDate.toEpochDay());
+        int to = Math.max(lowerBound((int) endDate.toEpochDay() + 1), from);
+
+        long totalCups = prefix(cupsTree, to) - prefix(cupsTree, from);
+        long minPrice = Long.MAX_VALUE;
+        long maxPrice = Long.MIN_VALUE;
+        for (int left = from + leafBase, right = to + leafBase; left < right; left >>= 1, right >>= 1) {
+            if ((left & 1) == 1) {
+                minPrice = Math.min(minPrice, minTree[left]);
+                maxPrice = Math.max(maxPrice, maxTree[left++]);
+            }
+            if ((right & 1) == 1) {
+                minPrice = Math.min(minPrice, minTree[--right]);
+                maxPrice = Math.max(maxPrice, maxTree[right]);
+            }
+        }
+
+        return StatisticsKernel.summaryOf(
+                totalCups,
+                prefix(dayCountTree, to) - prefix(dayCountTree, from),
+                prefix(centsTree, to) - prefix(centsTree, from),
+                prefix(ratingTree, to) - prefix(ratingTree, from),
+                totalCups > 0 ? minPrice : null,
+                totalCups > 0 ? maxPrice : null,
+                startDate,
+                endDate);
+    }
+
+    /**
+     * 把 [startDate, endDate] 内的杯数与金额按 bucketer 分组累加到 kernel。
+     * 连续分组每组两次前缀和相减；weekday 分组不连续，逐日累加。
+     */
+    synchronized void addTrends(TrendBucketer bucketer, LocalDate startDate, LocalDate endDate,
+                                StatisticsKernel kernel) {
+        int startDay = (int) startDate.toEpochDay();
+        int endDay = (int) endDate.toEpochDay();
+        int end = lowerBound(endDay + 1);
+
+        if (!bucketer.contiguous()) {
+            for (int i = lowerBound(startDay); i < end; i++) {
+                kernel.addToBucket(bucketer.bucketOf(days[i]), cups[i], cents[i]);
+            }
+            return;
+        }
+
+        int from = lowerBound(startDay);
+        for (int bucket = 0; bucket < bucketer.bucketCount() && from < end; bucket++) {
+            int to = bucket + 1 < bucketer.bucketCount()
+                    ? Math.min(lowerBound(bucketer.bucketStartDay(bucket + 1)), end)
+                    : end;
+            if (to > from) {
+                kernel.addToBucket(bucket,
+                        prefix(cupsTree, to) - prefix(cupsTree, from),
+                        prefix(centsTree, to) - prefix(centsTree, from));
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * 某一年的每日杯数与连续打卡天数。当前连续天数截至 today，today 没有消费时从前一天起算，不限于该年；
+     * 最长连续天数只统计该年之内。
+     */
+    synchronized StatisticsDtos.HeatmapResponse heatmap(int year, LocalDate today) {
+        LocalDate firstDay = LocalDate.of(year, 1, 1);
+        int startDay = (int) firstDay.toEpochDay();
+        int dayCount = Year.of(year).length();
+
+        int[] counts = new int[dayCount];
+        long totalCups = 0;
+        long consumeDays = 0;
+        int maxDailyCups = 0;
+        for (int i = lowerBound(startDay); i < size && days[i] < startDay + dayCount; i++) {
+            counts[days[i] - startDay] = cups[i];
+            totalCups += cups[i];
+            consumeDays += cups[i] > 0 ? 1 : 0;
+            maxDailyCups = Math.max(maxDailyCups, cups[i]);
+        }
+        List<Integer> countList = new ArrayList<>(dayCount);
+        for (int count : counts) {
+            countList.add(count);
+        }
+
+        // 最长连续：在该年范围内从每段连续的起点跳到终点，nextSetBit / nextClearBit 按 64 位一字扫描
+        int from = Math.max(startDay - bitBase, 0);
+        int to = startDay + dayCount - bitBase;
+        int longest = 0;
+        int longestStart = 0;
+        for (int run = from < to ? consumedDays.nextSetBit(from) : -1; run >= 0 && run < to;
+             run = consumedDays.nextSetBit(run)) {
+            int runEnd = Math.min(consumedDays.nextClearBit(run), to);
+            if (runEnd - run > longest) {
+                longest = runEnd - run;
+                longestStart = run;
+            }
+            run = runEnd;
+        }
+
+        int current = 0;
+        int todayBit = (int) today.toEpochDay() - bitBase;
+        int last = todayBit >= 0 && consumedDays.get(todayBit) ? todayBit : todayBit - 1;
+        if (last >= 0 && consumedDays.get(last)) {
+            current = last - consumedDays.previousClearBit(last);
+        }
+
+        return new StatisticsDtos.HeatmapResponse(
+                year,
+                firstDay,
+                countList,
+                totalCups,
+                consumeDays,
+                maxDailyCups,
+                current,
+                longest,
+                longest > 0 ? LocalDate.ofEpochDay(bitBase + (long) longestStart) : null,
+                longest > 0 ? LocalDate.ofEpochDay(bitBase + (long) longestStart + longest - 1) : null);
+    }
+
+    private void insertAt(int position, int epochDay, int dayCups, long amountCents, long ratingSum,
+                          long minPriceCents, long maxPriceCents) {
+        if (size == days.length) {
+            int capacity = size * 2;
+            days = Arrays.copyOf(days, capacity);
+            cups = Arrays.copyOf(cups, capacity);
+            cents = Arrays.copyOf(cents, capacity);
+            ratingSums = Arrays.copyOf(ratingSums, capacity);
+            minPrices = Arrays.copyOf(minPrices, capacity);
+            maxPrices = Arrays.copyOf(maxPrices, capacity);
+        }
+        int moved = size - position;
+        System.arraycopy(days, position, days, position + 1, moved);
+        System.arraycopy(cups, position, cups, position + 1, moved);
+        System.arraycopy(cents, position, cents, position + 1, moved);
+        System.arraycopy(ratingSums, position, ratingSums, position + 1, moved);
+        System.arraycopy(minPrices, position, minPrices, position + 1, moved);
+        System.arraycopy(maxPrices, position, maxPrices, position + 1, moved);
+        days[position] = epochDay;
+        cups[position] = dayCups;
+        cents[position] = amountCents;
+        ratingSums[position] = ratingSum;
+        minPrices[position] = minPriceCents;
+        maxPrices[position] = maxPriceCents;
+        size++;
+    }
+
+    /**
+     * 第一个日期不早于 epochDay 的位置。
+     */
+    private int lowerBound(int epochDay) {
+        int position = Arrays.binarySearch(days, 0, size, epochDay);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    /**
+     * 前 count 个位置的合计。
+     */
+    private static long prefix(long[] tree, int count) {
+        long sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private void addToTree(long[] tree, int position, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        for (int i = position + 1; i <= size; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private void setLeaf(int position) {
+        int node = position + leafBase;
+        minTree[node] = minPrices[position];
+        maxTree[node] = maxPrices[position];
+        for (node >>= 1; node > 0; node >>= 1) {
+            minTree[node] = Math.min(minTree[node * 2], minTree[node * 2 + 1]);
+            maxTree[node] = Math.max(maxTree[node * 2], maxTree[node * 2 + 1]);
+        }
+    }
+}
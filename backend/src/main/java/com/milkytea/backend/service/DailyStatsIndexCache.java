@@ -0,0 +1,92 @@
+package com.milkytea.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.milkytea.backend.event.RecordChangedEvent;
+import com.milkytea.backend.repository.UserDailyStatsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * 按用户缓存 {@link DailyStatsIndex}：首次访问时由每日汇总表加载，记录变更提交后按日期增量更新，
+ * 超过容量或长时间未访问的用户按 LRU 淘汰。加载与更新都在缓存映射的同一键上原子执行，
+ * 加载期间提交的变更会等加载完成后再应用，不会被加载时读到的旧数据覆盖。
+ */
+@Component
+class DailyStatsIndexCache {
+
+    /**
+     * 变更日期超过该数量时直接淘汰索引，下次访问时一次加载，不再逐日查询。
+     */
+    private static final int INVALIDATE_THRESHOLD = 64;
+
+    private final UserDailyStatsRepository dailyStatsRepository;
+    private final boolean enabled;
+    private final Cache<Long, DailyStatsIndex> indexes;
+
+    DailyStatsIndexCache(
+            UserDailyStatsRepository dailyStatsRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.statistics.index.enabled:true}") boolean enabled,
+            @Value("${app.statistics.index.maximum-size:1000}") long maximumSize,
+            @Value("${app.statistics.index.expire-after-access:30m}") Duration expireAfterAccess) {
+        this.dailyStatsRepository = dailyStatsRepository;
+        this.enabled = enabled;
+        this.indexes = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, indexes, "statisticsIndex");
+    }
+
+    /**
+     * 返回用户的区间索引，未启用时返回 null，由调用方改为查询数据库。
+     */
+    DailyStatsIndex get(Long userId) {
+        return enabled ? indexes.get(userId, this::load) : null;
+    }
+
+    /**
+     * 同 {@link #get(Long)}，未启用时临时加载一个不缓存的索引。
+     */
+    DailyStatsIndex getOrLoad(Long userId) {
+        return enabled ? indexes.get(userId, this::load) : load(userId);
+    }
+
+    /**
+     * 先于统计结果缓存的作废执行，保证作废后重新计算的结果读到的是已更新的索引。
+     * 更新时重新读取当天汇总而不是使用事件中的数据，并发提交的先后顺序不影响最终结果。
+     */
+    @Order(0)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRecordChanged(RecordChangedEvent event) {
+        if (event.getDates().size() > INVALIDATE_THRESHOLD) {
+            indexes.invalidate(event.getUserId());
+            return;
+        }
+        indexes.asMap().computeIfPresent(event.getUserId(), (userId, index) -> {
+            for (LocalDate date : event.getDates()) {
+                // 先清零，当天仍有汇总时再写入
+                index.update((int) date.toEpochDay(), 0, 0, 0, Long.MAX_VALUE, Long.MIN_VALUE);
+                dailyStatsRepository.scanDays(userId, date, date.plusDays(1), index::update);
+            }
+            return index;
+        });
+    }
+
+    private DailyStatsIndex load(Long userId) {
+        DailyStatsIndex index = new DailyStatsIndex();
+        dailyStatsRepository.scanAllDays(userId, index);
+        index.rebuild();
+        return index;
+    }
+}
@@ -0,0 +1,162 @@
+package com.milkytea.backend.service;
+
+import com.milkytea.backend.entity.UserDailyBrandStats;
+import com.milkytea.backend.entity.UserDailyStats;
+import com.milkytea.backend.event.RecordChangedEvent;
+import com.milkytea.backend.repository.MilkTeaRecordRepository;
+import com.milkytea.backend.repository.UserDailyBrandStatsRepository;
+import com.milkytea.backend.repository.UserDailyDistributionRepository;
+import com.milkytea.backend.repository.UserDailyStatsRepository;
+import com.milkytea.backend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 维护 user_daily_stats / user_daily_brand_stats 两张每日汇总表及 user_daily_distribution 每日分布表。
+ * 记录变更后按日期从原始记录重算当天数据，成本只与当天杯数有关。
+ */
+@Service
+@RequiredArgsConstructor
+public class DailyStatsService {
+
+    /**
+     * 一次变更涉及的日期超过该数量时（如批量导入），改为按日期区间整体重建汇总。
+     */
+    private static final int RANGE_REBUILD_THRESHOLD = 64;
+
+    private final MilkTeaRecordRepository recordRepository;
+    private final UserDailyStatsRepository dailyStatsRepository;
+    private final UserDailyBrandStatsRepository dailyBrandStatsRepository;
+    private final UserDailyDistributionRepository dailyDistributionRepository;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 重算指定日期的汇总，需在修改记录的同一事务内、记录写入之后调用。
+     * 先锁定用户行，保证并发写入同一用户时后一个事务能看到前一个事务已提交的记录。
+     */
+    @Transactional
+    public void refreshDays(Long userId, Collection<LocalDate> dates) {
+        if (dates.isEmpty()) {
+            return;
+        }
+        userRepository.lockById(userId);
+        if (dates.size() > RANGE_REBUILD_THRESHOLD) {
+            rebuildRange(userId, Collections.min(dates), Collections.max(dates));
+        } else {
+            for (LocalDate date : dates) {
+                refreshDay(userId, date);
+            }
+        }
+        eventPublisher.publishEvent(new RecordChangedEvent(userId, new HashSet<>(dates)));
+    }
+
+    /**
+     * 清空汇总表并由记录表重新生成，返回生成的每日汇总行数。
+     */
+    @Transactional
+    public int rebuildAll() {
+        dailyDistributionRepository.deleteAllInBatch();
+        dailyBrandStatsRepository.deleteAllInBatch();
+        dailyStatsRepository.deleteAllInBatch();
+        dailyDistributionRepository.insertFromRecords();
+        dailyBrandStatsRepository.insertFromRecords();
+        return dailyStatsRepository.insertFromRecords();
+    }
+
+    /**
+     * 删除并由记录表重新生成用户在日期区间内的汇总，语句数与日期数无关。
+     */
+    private void rebuildRange(Long userId, LocalDate startDate, LocalDate endDate) {
+        dailyDistributionRepository.deleteRange(userId, startDate, endDate);
+        dailyBrandStatsRepository.deleteRange(userId, startDate, endDate);
+        dailyStatsRepository.deleteRange(userId, startDate, endDate);
+        dailyDistributionRepository.insertRangeFromRecords(userId, startDate, endDate);
+        dailyBrandStatsRepository.insertRangeFromRecords(userId, startDate, endDate);
+        dailyStatsRepository.insertRangeFromRecords(userId, startDate, endDate);
+    }
+
+    private void refreshDay(Long userId, LocalDate date) {
+        // 分布草图行数只与当天的取值个数有关，直接删除后由记录表重新生成
+        dailyDistributionRepository.deleteDay(userId, date);
+        dailyDistributionRepository.insertDayFromRecords(userId, date);
+
+        List<MilkTeaRecordRepository.DayBrandAggregate> groups = recordRepository.aggregateDayByBrand(userId, date);
+
+        Map<Long, UserDailyBrandStats> staleRows = new HashMap<>();
+        for (UserDailyBrandStats row : dailyBrandStatsRepository.findByUserIdAndConsumeDate(userId, date)) {
+            staleRows.put(row.getBrandId(), row);
+        }
+
+        int cups = 0;
+        long amountCents = 0;
+        long ratingSum = 0;
+        long minPriceCents = Long.MAX_VALUE;
+        long maxPriceCents = Long.MIN_VALUE;
+        List<UserDailyBrandStats> brandRows = new ArrayList<>();
+        for (MilkTeaRecordRepository.DayBrandAggregate group : groups) {
+            long groupCents = toCents(group.getAmount());
+            long groupMinCents = toCents(group.getMinPrice());
+            long groupMaxCents = toCents(group.getMaxPrice());
+            UserDailyBrandStats row = staleRows.remove(group.getBrandId());
+            if (row == null) {
+                row = new UserDailyBrandStats();
+                row.setUserId(userId);
+                row.setConsumeDate(date);
+                row.setBrandId(group.getBrandId());
+            }
+            row.setCups((int) group.getCups());
+            row.setAmountCents(groupCents);
+            row.setRatingSum(group.getRatingSum());
+            row.setMinPriceCents(groupMinCents);
+            row.setMaxPriceCents(groupMaxCents);
+            brandRows.add(row);
+
+            cups += (int) group.getCups();
+            amountCents += groupCents;
+            ratingSum += group.getRatingSum();
+            minPriceCents = Math.min(minPriceCents, groupMinCents);
+            maxPriceCents = Math.max(maxPriceCents, groupMaxCents);
+        }
+        dailyBrandStatsRepository.saveAll(brandRows);
+        // 品牌被改掉或记录被删除后，当天不再出现的品牌行需要删除
+        dailyBrandStatsRepository.deleteAll(staleRows.values());
+
+        UserDailyStats.Key key = new UserDailyStats.Key(userId, date);
+        UserDailyStats daily = dailyStatsRepository.findById(key).orElse(null);
+        if (cups == 0) {
+            if (daily != null) {
+                dailyStatsRepository.delete(daily);
+            }
+            return;
+        }
+        if (daily == null) {
+            daily = new UserDailyStats();
+            daily.setUserId(userId);
+            daily.setConsumeDate(date);
+        }
+        daily.setCups(cups);
+        daily.setAmountCents(amountCents);
+        daily.setRatingSum(ratingSum);
+        daily.setMinPriceCents(minPriceCents);
+        daily.setMaxPriceCents(maxPriceCents);
+        dailyStatsRepository.save(daily);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
@@ -0,0 +1,49 @@
+package com.milkytea.backend.service;
+
+import com.milkytea.backend.event.BrandChangedEvent;
+import com.milkytea.backend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 生成条件请求使用的数据版本：用户数据取记录变更序号，每次增删改记录都会递增，
+ * 品牌目录使用进程内的全局版本，品牌变更提交后递增。
+ * 品牌版本以启动时间为初值，重启后旧 ETag 全部失效，不会因响应结构变化而命中旧缓存。
+ */
+@Service
+@RequiredArgsConstructor
+public class DataVersionService {
+
+    private final UserRepository userRepository;
+    private final AtomicLong brandVersion = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * 品牌目录的 ETag。
+     */
+    public String brandETag() {
+        return "\"b" + brandVersion.get() + "\"";
+    }
+
+    /**
+     * 用户数据的 ETag，记录列表中含品牌名称，因此同时包含品牌版本；
+     * withDate 为 true 时加入当天日期，供默认统计周期依赖当前日期的统计接口使用。
+     */
+    public String userETag(Long userId, boolean withDate) {
+        return "\"u" + userId + "-" + userRepository.findRecordChangeSeq(userId)
+                + "-b" + brandVersion.get()
+                + (withDate ? "-d" + LocalDate.now().toEpochDay() : "") + "\"";
+    }
+
+    /**
+     * 提交后再递增，提交前读到的旧版本只会让客户端多取一次数据，不会把旧数据标记为新版本。
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBrandChanged(BrandChangedEvent event) {
+        brandVersion.incrementAndGet();
+    }
+}
@@ -0,0 +1,83 @@
+package com.milkytea.backend.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * 单价的 DDSketch：以分计的单价 x 落入下标 ceil(log_γ x) + 1 的桶，γ = (1 + α) / (1 - α)，α = 1%。
+ * 桶内取相对误差最小的代表值，分位数估计的相对误差不超过 α。下标公式与
+ * {@link com.milkytea.backend.repository.UserDailyDistributionRepository#PRICE_BUCKET} 一致，0 元单独占用下标 0。
+ */
+final class PriceSketch {
+
+    private static final double GAMMA = 1.01 / 0.99;
+
+    private int size;
+    private int[] keys = new int[16];
+    private long[] counts = new long[16];
+    private long total;
+    private boolean sorted = true;
+
+    /**
+     * 累加一个桶的杯数，同一下标可以多次累加。
+     */
+    void add(int key, long cups) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            counts = Arrays.copyOf(counts, size * 2);
+        }
+        sorted = sorted && (size == 0 || keys[size - 1] <= key);
+        keys[size] = key;
+        counts[size] = cups;
+        size++;
+        total += cups;
+    }
+
+    /**
+     * 第 q 分位的单价 (元)，结果限制在统计周期的最低、最高单价之间，没有数据时返回 null。
+     */
+    BigDecimal quantile(double q, BigDecimal minPrice, BigDecimal maxPrice) {
+        if (total == 0) {
+            return null;
+        }
+        sortByKey();
+        long rank = (long) Math.floor(q * (total - 1));
+        long seen = 0;
+        int index = 0;
+        while (index < size - 1 && seen + counts[index] <= rank) {
+            seen += counts[index];
+            index++;
+        }
+        BigDecimal value = valueOf(keys[index]);
+        return value.max(minPrice).min(maxPrice);
+    }
+
+    private static BigDecimal valueOf(int key) {
+        if (key == 0) {
+            return BigDecimal.ZERO.setScale(2);
+        }
+        double cents = 2 * Math.pow(GAMMA, key - 1) / (GAMMA + 1);
+        return BigDecimal.valueOf(cents).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+    }
+
+    private void sortByKey() {
+        if (sorted) {
+            return;
+        }
+        // 桶数很少，插入排序即可
+        for (int i = 1; i < size; i++) {
+            int key = keys[i];
+            long count = counts[i];
+            int j = i - 1;
+            while (j >= 0 && keys[j] > key) {
+                keys[j + 1] = keys[j];
+                counts[j + 1] = counts[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            counts[j + 1] = count;
+        }
+        sorted = true;
+    }
+}
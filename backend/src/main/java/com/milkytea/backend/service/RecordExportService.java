@@ -0,0 +1,149 @@
+package com.milkytea.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.milkytea.backend.dto.RecordDtos;
+import com.milkytea.backend.repository.MilkTeaRecordRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 导出用户的全部记录：逐行读取结果集并直接写入响应流，内存占用与记录数无关。
+ */
+@Service
+@RequiredArgsConstructor
+public class RecordExportService {
+
+    private static final String CSV_HEADER = "id,brandId,brandName,category,sweetness,iceLevel,price,rating,"
+            + "comment,consumeDate,createdAt,updatedAt,changeSeq";
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final MilkTeaRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+
+    @Getter
+    @RequiredArgsConstructor
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String mediaType;
+        private final String extension;
+
+        public static Format of(String format) {
+            try {
+                return valueOf(format.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("不支持的导出格式: " + format);
+            }
+        }
+    }
+
+    /**
+     * 日期参数在返回前校验，写出阶段只剩查询与序列化。
+     */
+    public StreamingResponseBody export(Long userId, Format format, String startDate, String endDate,
+                                        boolean gzip) {
+        LocalDate start = parseDate(startDate);
+        LocalDate end = parseDate(endDate);
+
+        return out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+            try {
+                if (format == Format.CSV) {
+                    // BOM 让 Excel 按 UTF-8 识别中文
+                    writer.write('\uFEFF');
+                    writer.write(CSV_HEADER);
+                    writer.write("\r\n");
+                }
+                recordRepository.scanResponses(userId, start, end, record -> {
+                    try {
+                        if (format == Format.CSV) {
+                            writeCsv(writer, record);
+                        } else {
+                            writer.write(objectMapper.writeValueAsString(record));
+                            writer.write('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // 客户端断开等写出失败，交由容器中止响应
+                throw e.getCause();
+            }
+            writer.flush();
+            if (gzip) {
+                ((GZIPOutputStream) target).finish();
+            }
+        };
+    }
+
+    private void writeCsv(Writer writer, RecordDtos.RecordResponse record) throws IOException {
+        writer.write(String.valueOf(record.getId()));
+        writer.write(',');
+        writer.write(String.valueOf(record.getBrandId()));
+        writer.write(',');
+        writeCsvText(writer, record.getBrandName());
+        writer.write(',');
+        writeCsvText(writer, record.getCategory());
+        writer.write(',');
+        writeCsvText(writer, record.getSweetness());
+        writer.write(',');
+        writeCsvText(writer, record.getIceLevel());
+        writer.write(',');
+        writer.write(record.getPrice().toPlainString());
+        writer.write(',');
+        writer.write(String.valueOf(record.getRating()));
+        writer.write(',');
+        writeCsvText(writer, record.getComment());
+        writer.write(',');
+        writer.write(record.getConsumeDate().toString());
+        writer.write(',');
+        writer.write(record.getCreatedAt() != null ? record.getCreatedAt().toString() : "");
+        writer.write(',');
+        writer.write(record.getUpdatedAt() != null ? record.getUpdatedAt().toString() : "");
+        writer.write(',');
+        writer.write(String.valueOf(record.getChangeSeq()));
+        writer.write("\r\n");
+    }
+
+    /**
+     * 按 RFC 4180 转义：含逗号、引号或换行时整体加引号，引号写两次。
+     */
+    private static void writeCsvText(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private LocalDate parseDate(String value) {
+        return value != null && !value.isEmpty() ? LocalDate.parse(value) : null;
+    }
+}
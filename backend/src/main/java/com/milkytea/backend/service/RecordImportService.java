@@ -0,0 +1,262 @@
+package com.milkytea.backend.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.milkytea.backend.dto.RecordDtos;
+import com.milkytea.backend.entity.MilkTeaRecord;
+import com.milkytea.backend.entity.User;
+import com.milkytea.backend.repository.BrandRepository;
+import com.milkytea.backend.repository.MilkTeaRecordRepository;
+import com.milkytea.backend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 批量导入记录：边读边解析 CSV 或 JSON 数组，逐行校验，合格的记录按批写入，
+ * 不合格的行跳过并返回行号与原因。品牌在导入前一次性加载为内存映射，不逐行查询。
+ * 整个导入在一个事务内完成，读取或写入出错时全部回滚。
+ */
+@Service
+@RequiredArgsConstructor
+public class RecordImportService {
+
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_ROWS = 100_000;
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    /**
+     * CSV 可识别的列，列名同导出文件，其余列忽略。
+     */
+    private static final List<String> CSV_FIELDS = Arrays.asList(
+            "brandId", "brandName", "category", "sweetness", "iceLevel", "price", "rating", "comment", "consumeDate");
+
+    private final MilkTeaRecordRepository recordRepository;
+    private final BrandRepository brandRepository;
+    private final UserRepository userRepository;
+    private final RecordSyncService recordSyncService;
+    private final DailyStatsService dailyStatsService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final EntityManager entityManager;
+
+    public enum Format {
+        CSV, JSON
+    }
+
+    @Transactional
+    public RecordDtos.ImportResult importRecords(Long userId, Format format, InputStream body) {
+        Map<String, Long> brandIds = new HashMap<>();
+        for (BrandRepository.BrandName brand : brandRepository.findAllNames()) {
+            brandIds.put(brand.getName(), brand.getId());
+        }
+        Set<Long> knownBrandIds = new HashSet<>(brandIds.values());
+
+        Importer importer = new Importer(userId, brandIds, knownBrandIds);
+        try {
+            if (format == Format.CSV) {
+                readCsv(body, importer);
+            } else {
+                readJson(body, importer);
+            }
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e.getLocation() != null
+                    ? "JSON 格式错误，位于第 " + e.getLocation().getLineNr() + " 行第 " + e.getLocation().getColumnNr() + " 列"
+                    : "JSON 格式错误");
+        } catch (IOException e) {
+            throw new RuntimeException("导入数据读取失败: " + e.getMessage());
+        }
+        importer.flush();
+        dailyStatsService.refreshDays(userId, importer.dates);
+
+        return new RecordDtos.ImportResult(importer.imported, importer.failed, importer.errors);
+    }
+
+    private void readCsv(InputStream body, Importer importer) throws IOException {
+        CsvReader csv = new CsvReader(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)));
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            return;
+        }
+        // 列名不区分大小写，不认识的列对应 null
+        String[] columns = new String[header.size()];
+        for (int i = 0; i < columns.length; i++) {
+            String name = header.get(i).trim();
+            for (String field : CSV_FIELDS) {
+                if (field.equalsIgnoreCase(name)) {
+                    columns[i] = field;
+                }
+            }
+        }
+
+        List<String> values;
+        while ((values = csv.readRecord()) != null) {
+            ObjectNode node = objectMapper.createObjectNode();
+            for (int i = 0; i < values.size() && i < columns.length; i++) {
+                String value = values.get(i).trim();
+                if (columns[i] != null && !value.isEmpty()) {
+                    node.put(columns[i], value);
+                }
+            }
+            importer.accept(node);
+        }
+    }
+
+    private void readJson(InputStream body, Importer importer) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new RuntimeException("JSON 导入数据必须是数组");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new RuntimeException("JSON 数组未结束");
+                }
+                if (token == JsonToken.START_OBJECT) {
+                    importer.accept(parser.readValueAsTree());
+                } else {
+                    parser.skipChildren();
+                    importer.reject("不是 JSON 对象");
+                }
+            }
+        }
+    }
+
+    /**
+     * 单次导入的状态：待写入的批次、受影响的日期与错误列表。
+     */
+    private class Importer {
+
+        private final Long userId;
+        private final User user;
+        private final Map<String, Long> brandIds;
+        private final Set<Long> knownBrandIds;
+        private final List<MilkTeaRecord> batch = new ArrayList<>(BATCH_SIZE);
+        private final Set<LocalDate> dates = new HashSet<>();
+        private final List<RecordDtos.ImportError> errors = new ArrayList<>();
+        private long row;
+        private int imported;
+        private int failed;
+
+        Importer(Long userId, Map<String, Long> brandIds, Set<Long> knownBrandIds) {
+            this.userId = userId;
+            this.user = userRepository.getReferenceById(userId);
+            this.brandIds = brandIds;
+            this.knownBrandIds = knownBrandIds;
+        }
+
+        void accept(JsonNode node) {
+            if (++row > MAX_ROWS) {
+                throw new RuntimeException("单次最多导入 " + MAX_ROWS + " 行");
+            }
+
+            RecordDtos.CreateRecordRequest request;
+            try {
+                request = objectMapper.treeToValue(node, RecordDtos.CreateRecordRequest.class);
+            } catch (JsonMappingException e) {
+                String field = e.getPath().isEmpty() ? null : e.getPath().get(e.getPath().size() - 1).getFieldName();
+                addError(field != null ? field + ": 格式错误" : "格式错误");
+                return;
+            } catch (JsonProcessingException e) {
+                addError("格式错误");
+                return;
+            }
+
+            if (request.getBrandId() == null) {
+                String brandName = node.path("brandName").asText("").trim();
+                if (!brandName.isEmpty()) {
+                    Long brandId = brandIds.get(brandName);
+                    if (brandId == null) {
+                        addError("品牌不存在: " + brandName);
+                        return;
+                    }
+                    request.setBrandId(brandId);
+                }
+            } else if (!knownBrandIds.contains(request.getBrandId())) {
+                addError("品牌不存在: " + request.getBrandId());
+                return;
+            }
+
+            Set<ConstraintViolation<RecordDtos.CreateRecordRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                addError(violations.stream()
+                        .sorted(Comparator.comparing(v -> v.getPropertyPath().toString()))
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+
+            MilkTeaRecord record = new MilkTeaRecord();
+            record.setUser(user);
+            record.setBrand(brandRepository.getReferenceById(request.getBrandId()));
+            record.setCategory(request.getCategory());
+            record.setSweetness(request.getSweetness());
+            record.setIceLevel(request.getIceLevel());
+            record.setPrice(request.getPrice());
+            record.setRating(request.getRating());
+            record.setComment(request.getComment());
+            record.setConsumeDate(request.getConsumeDate() != null ? request.getConsumeDate() : LocalDate.now());
+            batch.add(record);
+            dates.add(record.getConsumeDate());
+            if (batch.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void reject(String message) {
+            if (++row > MAX_ROWS) {
+                throw new RuntimeException("单次最多导入 " + MAX_ROWS + " 行");
+            }
+            addError(message);
+        }
+
+        /**
+         * 为本批记录分配变更序号后写入，写入后清空持久化上下文，内存占用不随导入行数增长。
+         */
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            long seq = recordSyncService.allocate(userId, batch.size());
+            for (MilkTeaRecord record : batch) {
+                record.setChangeSeq(seq++);
+            }
+            recordRepository.saveAll(batch);
+            recordRepository.flush();
+            entityManager.clear();
+            imported += batch.size();
+            batch.clear();
+        }
+
+        private void addError(String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RecordDtos.ImportError(row, message));
+            }
+        }
+    }
+}
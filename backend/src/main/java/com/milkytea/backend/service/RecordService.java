@@ -1,40 +1,52 @@
 package com.milkytea.backend.service;
 
 import com.milkytea.backend.dto.RecordDtos;
-import com.milkytea.backend.entity.Brand;
 import com.milkytea.backend.entity.MilkTeaRecord;
-import com.milkytea.backend.entity.User;
 import com.milkytea.backend.repository.BrandRepository;
 import com.milkytea.backend.repository.MilkTeaRecordRepository;
+import com.milkytea.backend.repository.RecordSpecifications;
 import com.milkytea.backend.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class RecordService {
 
+    private static final int MAX_CURSOR_LIMIT = 100;
+    private static final Sort LATEST_FIRST = Sort.by(Sort.Order.desc("consumeDate"), Sort.Order.desc("id"));
+
     private final MilkTeaRecordRepository recordRepository;
     private final BrandRepository brandRepository;
     private final UserRepository userRepository;
+    private final DailyStatsService dailyStatsService;
+    private final RecordSyncService recordSyncService;
 
     @Transactional
-    public RecordDtos.RecordResponse createRecord(String username, RecordDtos.CreateRecordRequest request) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
-
-        Brand brand = brandRepository.findById(request.getBrandId())
+    public RecordDtos.RecordResponse createRecord(Long userId, RecordDtos.CreateRecordRequest request) {
+        String brandName = brandRepository.findNameById(request.getBrandId())
                 .orElseThrow(() -> new RuntimeException("品牌不存在"));
 
         MilkTeaRecord record = new MilkTeaRecord();
-        record.setUser(user);
-        record.setBrand(brand);
+        record.setUser(userRepository.getReferenceById(userId));
+        record.setBrand(brandRepository.getReferenceById(request.getBrandId()));
         record.setCategory(request.getCategory());
         record.setSweetness(request.getSweetness());
         record.setIceLevel(request.getIceLevel());
@@ -42,100 +54,73 @@ public class RecordService {
         record.setRating(request.getRating());
         record.setComment(request.getComment());
         record.setConsumeDate(request.getConsumeDate() != null ? request.getConsumeDate() : LocalDate.now());
+        record.setChangeSeq(recordSyncService.allocate(userId, 1));
 
         record = recordRepository.save(record);
+        dailyStatsService.refreshDays(userId, Collections.singleton(record.getConsumeDate()));
 
-        return convertToResponse(record);
+        return convertToResponse(record, brandName);
     }
 
-    public List<RecordDtos.RecordResponse> getUserRecords(
-            String username, String date, String startDate, String endDate,
+    public Page<RecordDtos.RecordResponse> getUserRecords(
+            Long userId, String date, String startDate, String endDate,
             Long brandId, String category, Integer page, Integer size) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
-
-        List<MilkTeaRecord> records = recordRepository.findByUserOrderByConsumeDateDesc(user);
-
-        // 应用筛选条件
-        if (date != null && !date.isEmpty()) {
-            LocalDate filterDate = LocalDate.parse(date);
-            records = records.stream()
-                    .filter(r -> r.getConsumeDate().equals(filterDate))
-                    .collect(Collectors.toList());
-        }
+        Specification<MilkTeaRecord> spec = buildFilter(userId, date, startDate, endDate, brandId, category);
 
-        if (startDate != null && !startDate.isEmpty()) {
-            LocalDate start = LocalDate.parse(startDate);
-            records = records.stream()
-                    .filter(r -> !r.getConsumeDate().isBefore(start))
-                    .collect(Collectors.toList());
+        // 分页下推为 LIMIT/OFFSET，未指定分页时返回全部记录
+        if (page != null && size != null && page >= 0 && size > 0) {
+            return recordRepository.findResponses(spec, PageRequest.of(page, size, LATEST_FIRST));
         }
 
-        if (endDate != null && !endDate.isEmpty()) {
-            LocalDate end = LocalDate.parse(endDate);
-            records = records.stream()
-                    .filter(r -> !r.getConsumeDate().isAfter(end))
-                    .collect(Collectors.toList());
-        }
+        return new PageImpl<>(recordRepository.findResponses(spec, LATEST_FIRST));
+    }
 
-        if (brandId != null) {
-            records = records.stream()
-                    .filter(r -> r.getBrand().getId().equals(brandId))
-                    .collect(Collectors.toList());
+    public RecordDtos.RecordCursorPage getUserRecordsAfter(
+            Long userId, String date, String startDate, String endDate,
+            Long brandId, String category, String after, int limit) {
+        if (limit <= 0) {
+            throw new RuntimeException("limit 必须大于0");
         }
+        int pageSize = Math.min(limit, MAX_CURSOR_LIMIT);
 
-        if (category != null && !category.isEmpty()) {
-            records = records.stream()
-                    .filter(r -> r.getCategory().contains(category))
-                    .collect(Collectors.toList());
+        Specification<MilkTeaRecord> spec = buildFilter(userId, date, startDate, endDate, brandId, category);
+        if (after != null && !after.isEmpty()) {
+            RecordCursor cursor = decodeCursor(after);
+            spec = spec.and(RecordSpecifications.seekAfter(cursor.consumeDate, cursor.id));
         }
 
-        // 应用分页
-        if (page != null && size != null && page >= 0 && size > 0) {
-            int start = page * size;
-            int end = Math.min(start + size, records.size());
-            if (start < records.size()) {
-                records = records.subList(start, end);
-            } else {
-                records = new ArrayList<>();
-            }
+        // 多取一条用来判断是否还有下一页
+        List<RecordDtos.RecordResponse> items = recordRepository.findResponses(spec, LATEST_FIRST, pageSize + 1);
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = items.subList(0, pageSize);
+            nextCursor = encodeCursor(items.get(pageSize - 1));
         }
 
-        return records.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return new RecordDtos.RecordCursorPage(items, nextCursor);
     }
 
-    public RecordDtos.RecordResponse getRecordById(String username, Long id) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
+    public RecordDtos.RecordResponse getRecordById(Long userId, Long id) {
+        MilkTeaRecord record = findOwnRecord(userId, id);
 
-        MilkTeaRecord record = recordRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("记录不存在"));
-
-        if (!record.getUser().getId().equals(user.getId())) {
-            throw new RuntimeException("无权访问该记录");
-        }
-
-        return convertToResponse(record);
+        return convertToResponse(record, findBrandName(record));
     }
 
     @Transactional
-    public RecordDtos.RecordResponse updateRecord(String username, Long id, RecordDtos.UpdateRecordRequest request) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
+    public RecordDtos.RecordResponse updateRecord(Long userId, Long id, RecordDtos.UpdateRecordRequest request) {
+        MilkTeaRecord record = findOwnRecord(userId, id);
 
-        MilkTeaRecord record = recordRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("记录不存在"));
-
-        if (!record.getUser().getId().equals(user.getId())) {
-            throw new RuntimeException("无权修改该记录");
-        }
+        // 日期变化时原日期和新日期的汇总都要重算
+        Set<LocalDate> affectedDates = new HashSet<>();
+        affectedDates.add(record.getConsumeDate());
 
+        String brandName;
         if (request.getBrandId() != null) {
-            Brand brand = brandRepository.findById(request.getBrandId())
+            brandName = brandRepository.findNameById(request.getBrandId())
                     .orElseThrow(() -> new RuntimeException("品牌不存在"));
-            record.setBrand(brand);
+            record.setBrand(brandRepository.getReferenceById(request.getBrandId()));
+        } else {
+            brandName = findBrandName(record);
         }
 
         if (request.getCategory() != null) {
@@ -159,49 +144,101 @@ public class RecordService {
         if (request.getConsumeDate() != null) {
             record.setConsumeDate(request.getConsumeDate());
         }
+        record.setChangeSeq(recordSyncService.allocate(userId, 1));
 
         record = recordRepository.save(record);
+        affectedDates.add(record.getConsumeDate());
+        dailyStatsService.refreshDays(userId, affectedDates);
 
-        return convertToResponse(record);
+        return convertToResponse(record, brandName);
     }
 
     @Transactional
-    public void deleteRecord(String username, Long id) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
+    public void deleteRecord(Long userId, Long id) {
+        MilkTeaRecord record = findOwnRecord(userId, id);
 
-        MilkTeaRecord record = recordRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("记录不存在"));
+        recordRepository.delete(record);
+        recordSyncService.recordDeleted(userId, Collections.singletonList(id));
+        dailyStatsService.refreshDays(userId, Collections.singleton(record.getConsumeDate()));
+    }
 
-        if (!record.getUser().getId().equals(user.getId())) {
-            throw new RuntimeException("无权删除该记录");
+    @Transactional
+    public void batchDeleteRecords(Long userId, List<Long> ids) {
+        // 一次查出本人的全部目标记录，缺少的 ID 不存在或属于其他用户
+        Set<Long> idSet = new LinkedHashSet<>(ids);
+        List<MilkTeaRecord> records = recordRepository.findByUserIdAndIdIn(userId, idSet);
+        if (records.size() < idSet.size()) {
+            for (MilkTeaRecord record : records) {
+                idSet.remove(record.getId());
+            }
+            throw new RuntimeException("记录不存在: " + idSet.iterator().next());
         }
 
-        recordRepository.delete(record);
+        Set<LocalDate> affectedDates = new HashSet<>();
+        for (MilkTeaRecord record : records) {
+            affectedDates.add(record.getConsumeDate());
+        }
+        recordRepository.deleteAllByIdInBatch(idSet);
+        recordSyncService.recordDeleted(userId, new ArrayList<>(idSet));
+        dailyStatsService.refreshDays(userId, affectedDates);
     }
 
-    @Transactional
-    public void batchDeleteRecords(String username, List<Long> ids) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
+    /**
+     * 归属作为查询条件，其他用户的记录按不存在处理。
+     */
+    private MilkTeaRecord findOwnRecord(Long userId, Long id) {
+        return recordRepository.findByIdAndUserId(id, userId)
+                .orElseThrow(() -> new RuntimeException("记录不存在"));
+    }
 
-        for (Long id : ids) {
-            MilkTeaRecord record = recordRepository.findById(id)
-                    .orElseThrow(() -> new RuntimeException("记录不存在: " + id));
+    private Specification<MilkTeaRecord> buildFilter(
+            Long userId, String date, String startDate, String endDate, Long brandId, String category) {
+        // 筛选条件全部下推为 SQL 谓词
+        return Specification.where(RecordSpecifications.belongsTo(userId))
+                .and(RecordSpecifications.consumedOn(parseDate(date)))
+                .and(RecordSpecifications.consumedOnOrAfter(parseDate(startDate)))
+                .and(RecordSpecifications.consumedOnOrBefore(parseDate(endDate)))
+                .and(RecordSpecifications.hasBrand(brandId))
+                .and(RecordSpecifications.categoryContains(category));
+    }
 
-            if (!record.getUser().getId().equals(user.getId())) {
-                throw new RuntimeException("无权删除记录: " + id);
-            }
+    /**
+     * 游标内容为 "消费日期的epochDay:记录ID"，经 URL 安全的 Base64 编码后对客户端不透明。
+     */
+    private String encodeCursor(RecordDtos.RecordResponse record) {
+        String raw = record.getConsumeDate().toEpochDay() + ":" + record.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
 
-            recordRepository.delete(record);
+    private RecordCursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new RecordCursor(
+                    LocalDate.ofEpochDay(Long.parseLong(raw.substring(0, separator))),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException e) {
+            throw new RuntimeException("无效的分页游标");
         }
     }
 
-    private RecordDtos.RecordResponse convertToResponse(MilkTeaRecord record) {
+    private LocalDate parseDate(String value) {
+        return value != null && !value.isEmpty() ? LocalDate.parse(value) : null;
+    }
+
+    /**
+     * 品牌是懒加载代理，只按 id 查询名称，避免初始化代理时读取 logo_url。
+     */
+    private String findBrandName(MilkTeaRecord record) {
+        return brandRepository.findNameById(record.getBrand().getId())
+                .orElseThrow(() -> new RuntimeException("品牌不存在"));
+    }
+
+    private RecordDtos.RecordResponse convertToResponse(MilkTeaRecord record, String brandName) {
         return new RecordDtos.RecordResponse(
                 record.getId(),
                 record.getBrand().getId(),
-                record.getBrand().getName(),
+                brandName,
                 record.getCategory(),
                 record.getSweetness(),
                 record.getIceLevel(),
@@ -210,6 +247,13 @@ public class RecordService {
                 record.getComment(),
                 record.getConsumeDate(),
                 record.getCreatedAt(),
-                record.getUpdatedAt());
+                record.getUpdatedAt(),
+                record.getChangeSeq());
+    }
+
+    @RequiredArgsConstructor
+    private static class RecordCursor {
+        private final LocalDate consumeDate;
+        private final Long id;
     }
 }
@@ -0,0 +1,116 @@
+package com.milkytea.backend.service;
+
+import com.milkytea.backend.dto.RecordDtos;
+import com.milkytea.backend.entity.MilkTeaRecord;
+import com.milkytea.backend.entity.RecordTombstone;
+import com.milkytea.backend.repository.MilkTeaRecordRepository;
+import com.milkytea.backend.repository.RecordSpecifications;
+import com.milkytea.backend.repository.RecordTombstoneRepository;
+import com.milkytea.backend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 记录增量同步：每个用户维护一个单调递增的变更序号，新增和修改把新序号写入记录，
+ * 删除写入带序号的墓碑。序号在写事务中分配并锁定用户行，同一用户的变更按序号顺序提交，
+ * 读到的当前序号之前的变更都已提交，客户端按 nextSince 续传不会漏掉变更。
+ */
+@Service
+@RequiredArgsConstructor
+public class RecordSyncService {
+
+    private static final int DEFAULT_LIMIT = 500;
+    private static final int MAX_LIMIT = 1000;
+    private static final Sort BY_CHANGE_SEQ = Sort.by("changeSeq");
+
+    private final MilkTeaRecordRepository recordRepository;
+    private final RecordTombstoneRepository tombstoneRepository;
+    private final UserRepository userRepository;
+
+    /**
+     * 为用户分配 count 个连续的变更序号，返回第一个。
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long allocate(Long userId, int count) {
+        userRepository.advanceRecordChangeSeq(userId, count);
+        return userRepository.findRecordChangeSeq(userId) - count + 1;
+    }
+
+    /**
+     * 为已删除的记录写入墓碑。
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Long userId, List<Long> recordIds) {
+        if (recordIds.isEmpty()) {
+            return;
+        }
+        long seq = allocate(userId, recordIds.size());
+        LocalDateTime now = LocalDateTime.now();
+        List<RecordTombstone> tombstones = new ArrayList<>(recordIds.size());
+        for (Long recordId : recordIds) {
+            tombstones.add(new RecordTombstone(userId, seq++, recordId, now));
+        }
+        tombstoneRepository.saveAll(tombstones);
+    }
+
+    /**
+     * 返回变更序号大于 since 的记录与墓碑，按序号合并后最多 limit 条。
+     * since 为 0 时视为全量同步，只返回现有记录，不返回墓碑。
+     */
+    public RecordDtos.RecordChanges getChanges(Long userId, long since, Integer limit) {
+        int pageSize = limit != null ? limit : DEFAULT_LIMIT;
+        if (pageSize <= 0) {
+            throw new RuntimeException("limit 必须大于0");
+        }
+        pageSize = Math.min(pageSize, MAX_LIMIT);
+
+        // 先读当前序号作为本次同步的上界，之后提交的变更留给下一次
+        long upTo = userRepository.findRecordChangeSeq(userId);
+        if (since < 0 || since > upTo) {
+            throw new RuntimeException("无效的同步序号，请从 0 重新同步");
+        }
+
+        Specification<MilkTeaRecord> spec = Specification
+                .where(RecordSpecifications.belongsTo(userId))
+                .and(RecordSpecifications.changedBetween(since, upTo));
+        List<RecordDtos.RecordResponse> records = since == upTo
+                ? Collections.emptyList()
+                : recordRepository.findResponses(spec, BY_CHANGE_SEQ, pageSize + 1);
+        List<RecordTombstone> tombstones = since == 0 || since == upTo
+                ? Collections.emptyList()
+                : tombstoneRepository.findChanges(userId, since, upTo, PageRequest.of(0, pageSize + 1));
+
+        // 两路按序号归并，取前 pageSize 条
+        List<RecordDtos.RecordResponse> upserts = new ArrayList<>();
+        List<RecordDtos.DeletedRecord> deleted = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        long lastSeq = since;
+        while (upserts.size() + deleted.size() < pageSize && (i < records.size() || j < tombstones.size())) {
+            if (j == tombstones.size()
+                    || (i < records.size() && records.get(i).getChangeSeq() < tombstones.get(j).getChangeSeq())) {
+                RecordDtos.RecordResponse record = records.get(i++);
+                upserts.add(record);
+                lastSeq = record.getChangeSeq();
+            } else {
+                RecordTombstone tombstone = tombstones.get(j++);
+                deleted.add(new RecordDtos.DeletedRecord(
+                        tombstone.getRecordId(), tombstone.getChangeSeq(), tombstone.getDeletedAt()));
+                lastSeq = tombstone.getChangeSeq();
+            }
+        }
+
+        boolean hasMore = i < records.size() || j < tombstones.size();
+        return new RecordDtos.RecordChanges(upserts, deleted, hasMore ? lastSeq : upTo, hasMore);
+    }
+}
@@ -0,0 +1,81 @@
+package com.milkytea.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.milkytea.backend.event.RecordChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 统计结果的进程内缓存，键为 (用户, 代数, 方法, 规范化后的参数)。
+ * 记录变更提交后为该用户分配新的代数，旧代数的条目不再命中，随容量或过期淘汰。
+ * 代数取自全局递增序列，即使代数表中的条目被淘汰也不会与旧条目重号。
+ * 命中、未命中与淘汰次数以 cache.* 指标暴露在 /actuator/metrics。
+ */
+@Component
+public class StatisticsCache {
+
+    private final AtomicLong generationSequence = new AtomicLong();
+    private final Cache<Long, Long> generations;
+    private final Cache<Key, Object> entries;
+
+    public StatisticsCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.statistics.cache.maximum-size:10000}") long maximumSize,
+            @Value("${app.statistics.cache.ttl:10m}") Duration ttl) {
+        this.generations = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(ttl)
+                .build();
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "statistics");
+    }
+
+    /**
+     * 命中时直接返回缓存结果，否则调用 loader 计算并缓存。
+     * 代数在计算前取得，计算期间若有记录提交，结果会落在已作废的代数下。
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Long userId, String method, Supplier<T> loader, Object... params) {
+        long generation = generations.get(userId, id -> generationSequence.incrementAndGet());
+        Key key = new Key(userId, generation, method, Arrays.asList(params));
+        return (T) entries.get(key, k -> loader.get());
+    }
+
+    public void invalidate(Long userId) {
+        generations.put(userId, generationSequence.incrementAndGet());
+    }
+
+    /**
+     * 事务提交后再作废，避免提交前的并发读取把旧数据重新写回缓存。
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRecordChanged(RecordChangedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Key {
+        private final Long userId;
+        private final long generation;
+        private final String method;
+        private final List<Object> params;
+    }
+}
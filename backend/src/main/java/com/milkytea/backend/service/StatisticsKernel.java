@@ -0,0 +1,353 @@
+package com.milkytea.backend.service;
+
+import com.milkytea.backend.dto.StatisticsDtos;
+import com.milkytea.backend.repository.UserDailyBrandStatsRepositoryCustom;
+import com.milkytea.backend.repository.UserDailyStatsRepositoryCustom;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 统计计算内核：金额为分 (long)，日期为 epochDay (int)，品牌为稠密下标 (int)。
+ * 每行数据只做基本类型数组上的累加，BigDecimal、LocalDate 与 DTO 只在 to* 方法中生成。
+ * 输入行需按日期升序，以便按日期变化统计消费天数。实例非线程安全，每次计算新建一个。
+ */
+final class StatisticsKernel implements UserDailyStatsRepositoryCustom.DayRowHandler,
+        UserDailyBrandStatsRepositoryCustom.DayBrandRowHandler {
+
+    private static final int INITIAL_BRAND_CAPACITY = 16;
+
+    // 统计周期 [startDay, endDay]
+    private final int startDay;
+    private final int endDay;
+
+    private long totalCups;
+    private long totalDays;
+    private long totalCents;
+    private long ratingSum;
+    private long minPriceCents = Long.MAX_VALUE;
+    private long maxPriceCents = Long.MIN_VALUE;
+    private int lastCountedDay = Integer.MIN_VALUE;
+
+    // 品牌按首次出现顺序分配下标，brandSlots 为开放寻址表，存放下标 + 1
+    private int brandCount;
+    private long[] brandIds = new long[INITIAL_BRAND_CAPACITY];
+    private String[] brandNames = new String[INITIAL_BRAND_CAPACITY];
+    private long[] brandCups = new long[INITIAL_BRAND_CAPACITY];
+    private long[] brandCents = new long[INITIAL_BRAND_CAPACITY];
+    private long[] brandRatingSums = new long[INITIAL_BRAND_CAPACITY];
+    private int[] brandSlots = new int[INITIAL_BRAND_CAPACITY * 2];
+
+    // 趋势：各分组的杯数与金额，未启用时为 null
+    private TrendBucketer bucketer;
+    private long[] bucketCups;
+    private long[] bucketCents;
+
+    // 日历：月内第 i 天的杯数与金额，未启用时为 null
+    private YearMonth calendarMonth;
+    private int calendarStartDay;
+    private int[] calendarCups;
+    private long[] calendarCents;
+
+    StatisticsKernel(LocalDate startDate, LocalDate endDate) {
+        this.startDay = (int) startDate.toEpochDay();
+        this.endDay = (int) endDate.toEpochDay();
+    }
+
+    /**
+     * 启用趋势累加，bucketer 需与本内核的统计周期一致。
+     */
+    StatisticsKernel withTrends(TrendBucketer bucketer) {
+        this.bucketer = bucketer;
+        this.bucketCups = new long[bucketer.bucketCount()];
+        this.bucketCents = new long[bucketer.bucketCount()];
+        return this;
+    }
+
+    /**
+     * 启用日历累加，日历月份可以超出统计周期。
+     */
+    StatisticsKernel withCalendar(YearMonth month) {
+        this.calendarMonth = month;
+        this.calendarStartDay = (int) month.atDay(1).toEpochDay();
+        this.calendarCups = new int[month.lengthOfMonth()];
+        this.calendarCents = new long[month.lengthOfMonth()];
+        return this;
+    }
+
+    /**
+     * 累加一天的汇总，不区分品牌。
+     */
+    @Override
+    public void accept(int epochDay, int cups, long amountCents, long ratingSum,
+                       long minPriceCents, long maxPriceCents) {
+        if (calendarCups != null) {
+            int calendarIndex = epochDay - calendarStartDay;
+            if (calendarIndex >= 0 && calendarIndex < calendarCups.length) {
+                calendarCups[calendarIndex] += cups;
+                calendarCents[calendarIndex] += amountCents;
+            }
+        }
+        if (epochDay < startDay || epochDay > endDay) {
+            return;
+        }
+
+        totalCups += cups;
+        totalCents += amountCents;
+        this.ratingSum += ratingSum;
+        this.minPriceCents = Math.min(this.minPriceCents, minPriceCents);
+        this.maxPriceCents = Math.max(this.maxPriceCents, maxPriceCents);
+        if (epochDay != lastCountedDay) {
+            totalDays++;
+            lastCountedDay = epochDay;
+        }
+
+        if (bucketer != null) {
+            int bucket = bucketer.bucketOf(epochDay);
+            bucketCups[bucket] += cups;
+            bucketCents[bucket] += amountCents;
+        }
+    }
+
+    /**
+     * 累加某天某品牌的汇总。
+     */
+    @Override
+    public void accept(int epochDay, long brandId, String brandName, int cups, long amountCents,
+                       long ratingSum, long minPriceCents, long maxPriceCents) {
+        accept(epochDay, cups, amountCents, ratingSum, minPriceCents, maxPriceCents);
+        if (epochDay >= startDay && epochDay <= endDay) {
+            addBrand(brandId, brandName, cups, amountCents, ratingSum);
+        }
+    }
+
+    /**
+     * 直接累加某个趋势分组的合计，用于由区间索引得出分组合计的场景。
+     */
+    void addToBucket(int bucket, long cups, long amountCents) {
+        bucketCups[bucket] += cups;
+        bucketCents[bucket] += amountCents;
+    }
+
+    /**
+     * 直接累加品牌在统计周期内的合计，用于数据库已按品牌分组的场景。
+     */
+    void addBrand(long brandId, String brandName, long cups, long amountCents, long ratingSum) {
+        int index = brandIndex(brandId, brandName);
+        brandCups[index] += cups;
+        brandCents[index] += amountCents;
+        brandRatingSums[index] += ratingSum;
+    }
+
+    StatisticsDtos.SummaryResponse toSummary(LocalDate startDate, LocalDate endDate) {
+        return summaryOf(totalCups, totalDays, totalCents, ratingSum,
+                totalCups > 0 ? minPriceCents : null,
+                totalCups > 0 ? maxPriceCents : null,
+                startDate, endDate);
+    }
+
+    /**
+     * 品牌按杯数降序、品牌 ID 升序排列。
+     */
+    StatisticsDtos.BrandStatisticsResponse toBrandStatistics(LocalDate startDate, LocalDate endDate) {
+        int[] order = new int[brandCount];
+        long brandTotal = 0;
+        for (int i = 0; i < brandCount; i++) {
+            order[i] = i;
+            brandTotal += brandCups[i];
+        }
+        // 品牌数很少，插入排序即可
+        for (int i = 1; i < brandCount; i++) {
+            int current = order[i];
+            int j = i - 1;
+            while (j >= 0 && ranksBefore(current, order[j])) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = current;
+        }
+
+        // 占比由各品牌杯数汇总得出，无需再单独查询总数
+        List<StatisticsDtos.BrandStatistics> statistics = new ArrayList<>(brandCount);
+        for (int index : order) {
+            long cups = brandCups[index];
+            statistics.add(new StatisticsDtos.BrandStatistics(
+                    brandIds[index],
+                    brandNames[index],
+                    cups,
+                    fromCents(brandCents[index]),
+                    cups > 0 ? (double) brandRatingSums[index] / cups : 0.0,
+                    brandTotal > 0 ? (double) cups / brandTotal * 100 : 0.0));
+        }
+
+        return new StatisticsDtos.BrandStatisticsResponse(statistics, startDate, endDate);
+    }
+
+    /**
+     * maxPoints 不为 null 且分组数超过它时用 LTTB 降采样到 maxPoints 个点，
+     * 两条曲线保留同一组分组，日期一一对应。
+     */
+    StatisticsDtos.TrendsResponse toTrends(String startLabel, String endLabel, Integer maxPoints) {
+        int[] kept = maxPoints != null && bucketCups.length > maxPoints
+                ? TrendDownsampler.lttb(combinedTrend(), maxPoints)
+                : null;
+        String[] labels = new String[bucketCups.length];
+        return new StatisticsDtos.TrendsResponse(
+                bucketer.groupBy(),
+                new StatisticsDtos.TrendSeries(
+                        trendPoints(bucketCups, false, labels, kept),
+                        trendPoints(bucketCents, true, labels, kept)),
+                startLabel,
+                endLabel);
+    }
+
+    StatisticsDtos.CalendarMonthResponse toCalendar() {
+        LocalDate firstDay = calendarMonth.atDay(1);
+        long monthCups = 0;
+        long monthCents = 0;
+        long consumeDays = 0;
+
+        // 没有消费的日期补零
+        List<StatisticsDtos.CalendarDay> days = new ArrayList<>(calendarCups.length);
+        for (int index = 0; index < calendarCups.length; index++) {
+            monthCups += calendarCups[index];
+            monthCents += calendarCents[index];
+            if (calendarCups[index] > 0) {
+                consumeDays++;
+            }
+            days.add(new StatisticsDtos.CalendarDay(
+                    firstDay.plusDays(index),
+                    calendarCups[index],
+                    fromCents(calendarCents[index]),
+                    calendarCups[index] > 0));
+        }
+
+        return new StatisticsDtos.CalendarMonthResponse(
+                calendarMonth.getYear(),
+                calendarMonth.getMonthValue(),
+                days,
+                monthCups,
+                fromCents(monthCents),
+                consumeDays);
+    }
+
+    /**
+     * 由已汇总好的数值生成基础统计，没有记录时最低、最高单价传 null。
+     */
+    static StatisticsDtos.SummaryResponse summaryOf(
+            long totalCups, long totalDays, long totalCents, long ratingSum,
+            Long minPriceCents, Long maxPriceCents, LocalDate startDate, LocalDate endDate) {
+        BigDecimal totalAmount = fromCents(totalCents);
+        BigDecimal averagePrice = totalCups > 0
+                ? totalAmount.divide(BigDecimal.valueOf(totalCups), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+        double averageRating = totalCups > 0 ? (double) ratingSum / totalCups : 0.0;
+
+        return new StatisticsDtos.SummaryResponse(
+                totalCups,
+                totalDays,
+                totalAmount,
+                averagePrice,
+                maxPriceCents != null ? fromCents(maxPriceCents) : BigDecimal.ZERO,
+                minPriceCents != null ? fromCents(minPriceCents) : BigDecimal.ZERO,
+                averageRating,
+                startDate,
+                endDate);
+    }
+
+    /**
+     * 金额以分为单位累加，返回前还原为两位小数的元；为 0 时返回 BigDecimal.ZERO，
+     * 与按 BigDecimal 累加（初值 ZERO）时没有记录的输出一致，序列化为 0 而不是 0.00。
+     */
+    static BigDecimal fromCents(long cents) {
+        return cents == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * 杯数与金额各自按最大值归一化后相加，作为降采样依据，两条曲线的峰谷都会影响保留的分组。
+     */
+    private double[] combinedTrend() {
+        long maxCups = 0;
+        long maxCents = 0;
+        for (int bucket = 0; bucket < bucketCups.length; bucket++) {
+            maxCups = Math.max(maxCups, bucketCups[bucket]);
+            maxCents = Math.max(maxCents, bucketCents[bucket]);
+        }
+        double[] combined = new double[bucketCups.length];
+        for (int bucket = 0; bucket < combined.length; bucket++) {
+            combined[bucket] = (maxCups > 0 ? (double) bucketCups[bucket] / maxCups : 0)
+                    + (maxCents > 0 ? (double) bucketCents[bucket] / maxCents : 0);
+        }
+        return combined;
+    }
+
+    /**
+     * labels 在两条曲线间共享，每个分组的标签只生成一次；kept 为 null 时输出全部分组。
+     */
+    private List<StatisticsDtos.TrendDataPoint> trendPoints(
+            long[] values, boolean cents, String[] labels, int[] kept) {
+        int size = kept != null ? kept.length : values.length;
+        List<StatisticsDtos.TrendDataPoint> points = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int bucket = kept != null ? kept[i] : i;
+            if (labels[bucket] == null) {
+                labels[bucket] = bucketer.label(bucket);
+            }
+            points.add(new StatisticsDtos.TrendDataPoint(labels[bucket],
+                    cents ? fromCents(values[bucket]) : BigDecimal.valueOf(values[bucket])));
+        }
+        return points;
+    }
+
+    private boolean ranksBefore(int left, int right) {
+        if (brandCups[left] != brandCups[right]) {
+            return brandCups[left] > brandCups[right];
+        }
+        return brandIds[left] < brandIds[right];
+    }
+
+    private int brandIndex(long brandId, String brandName) {
+        int mask = brandSlots.length - 1;
+        int slot = Long.hashCode(brandId * 0x9E3779B97F4A7C15L) & mask;
+        while (brandSlots[slot] != 0) {
+            int index = brandSlots[slot] - 1;
+            if (brandIds[index] == brandId) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (brandCount == brandIds.length) {
+            growBrands();
+            return brandIndex(brandId, brandName);
+        }
+        int index = brandCount++;
+        brandIds[index] = brandId;
+        brandNames[index] = brandName;
+        brandSlots[slot] = index + 1;
+        return index;
+    }
+
+    private void growBrands() {
+        int capacity = brandIds.length * 2;
+        brandIds = Arrays.copyOf(brandIds, capacity);
+        brandNames = Arrays.copyOf(brandNames, capacity);
+        brandCups = Arrays.copyOf(brandCups, capacity);
+        brandCents = Arrays.copyOf(brandCents, capacity);
+        brandRatingSums = Arrays.copyOf(brandRatingSums, capacity);
+        brandSlots = new int[capacity * 2];
+        int mask = brandSlots.length - 1;
+        for (int index = 0; index < brandCount; index++) {
+            int slot = Long.hashCode(brandIds[index] * 0x9E3779B97F4A7C15L) & mask;
+            while (brandSlots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            brandSlots[slot] = index + 1;
+        }
+    }
+}
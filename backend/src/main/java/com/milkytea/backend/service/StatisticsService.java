@@ -1,266 +1,295 @@
 package com.milkytea.backend.service;
 
 import com.milkytea.backend.dto.StatisticsDtos;
-import com.milkytea.backend.entity.MilkTeaRecord;
-import com.milkytea.backend.entity.User;
-import com.milkytea.backend.repository.MilkTeaRecordRepository;
-import com.milkytea.backend.repository.UserRepository;
+import com.milkytea.backend.repository.UserDailyBrandStatsRepository;
+import com.milkytea.backend.repository.UserDailyDistributionRepository;
+import com.milkytea.backend.repository.UserDailyStatsRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
-import java.time.temporal.TemporalAdjusters;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
 
 @Service
 @RequiredArgsConstructor
 public class StatisticsService {
 
-        private final MilkTeaRecordRepository recordRepository;
-        private final UserRepository userRepository;
+        private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
-        public StatisticsDtos.SummaryResponse getSummary(String username, LocalDate startDate, LocalDate endDate) {
-                User user = userRepository.findByUsername(username)
-                                .orElseThrow(() -> new RuntimeException("用户不存在"));
+        private final UserDailyStatsRepository dailyStatsRepository;
+        private final UserDailyBrandStatsRepository dailyBrandStatsRepository;
+        private final UserDailyDistributionRepository dailyDistributionRepository;
+        private final StatisticsCache statisticsCache;
+        private final DailyStatsIndexCache dailyStatsIndexCache;
 
-                if (startDate == null) {
-                        startDate = LocalDate.now().minusMonths(1);
-                }
-                if (endDate == null) {
-                        endDate = LocalDate.now();
-                }
+        /**
+         * 未指定 maxPoints 时每条趋势曲线的点数上限。
+         */
+        @Value("${app.statistics.trends.default-max-points:500}")
+        private int defaultMaxPoints;
 
-                List<MilkTeaRecord> records = recordRepository.findByUserAndConsumeDateBetweenOrderByConsumeDateDesc(
-                                user, startDate, endDate);
+        /**
+         * 客户端可指定的 maxPoints 最大值，超过时返回 400。
+         */
+        @Value("${app.statistics.trends.max-points-limit:2000}")
+        private int maxPointsLimit;
 
-                long totalCups = records.size();
-                long totalDays = recordRepository.countDistinctDaysByUserAndConsumeDateBetween(user, startDate,
-                                endDate);
+        public StatisticsDtos.SummaryResponse getSummary(Long userId, LocalDate startDate, LocalDate endDate) {
+                LocalDate start = startDate != null ? startDate : LocalDate.now().minusMonths(1);
+                LocalDate end = endDate != null ? endDate : LocalDate.now();
 
-                BigDecimal totalAmount = records.stream()
-                                .map(MilkTeaRecord::getPrice)
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                return statisticsCache.get(userId, "summary", () -> computeSummary(userId, start, end), start, end);
+        }
 
-                BigDecimal averagePrice = totalCups > 0
-                                ? totalAmount.divide(BigDecimal.valueOf(totalCups), 2, RoundingMode.HALF_UP)
-                                : BigDecimal.ZERO;
+        public StatisticsDtos.BrandStatisticsResponse getBrandStatistics(
+                        Long userId, LocalDate startDate, LocalDate endDate) {
+                LocalDate start = startDate != null ? startDate : LocalDate.now().minusMonths(1);
+                LocalDate end = endDate != null ? endDate : LocalDate.now();
 
-                Optional<BigDecimal> maxPrice = records.stream()
-                                .map(MilkTeaRecord::getPrice)
-                                .max(BigDecimal::compareTo);
+                return statisticsCache.get(userId, "brands", () -> computeBrandStatistics(userId, start, end),
+                                start, end);
+        }
 
-                Optional<BigDecimal> minPrice = records.stream()
-                                .map(MilkTeaRecord::getPrice)
-                                .min(BigDecimal::compareTo);
+        public StatisticsDtos.CalendarMonthResponse getCalendarData(Long userId, int year, int month) {
 
-                double averageRating = records.stream()
-                                .mapToInt(MilkTeaRecord::getRating)
-                                .average()
-                                .orElse(0.0);
+                return statisticsCache.get(userId, "calendar", () -> computeCalendarData(userId, year, month),
+                                year, month);
+        }
 
-                return new StatisticsDtos.SummaryResponse(
-                                totalCups,
-                                totalDays,
-                                totalAmount,
-                                averagePrice,
-                                maxPrice.orElse(BigDecimal.ZERO),
-                                minPrice.orElse(BigDecimal.ZERO),
-                                averageRating,
-                                startDate,
-                                endDate);
+        /**
+         * 年度热力图由区间索引中的每日杯数与消费日位图得到，连续天数与今天有关，今天作为缓存参数之一。
+         */
+        public StatisticsDtos.HeatmapResponse getHeatmap(Long userId, int year) {
+                if (year < 1 || year > 9999) {
+                        throw new RuntimeException("年份超出范围");
+                }
+                LocalDate today = LocalDate.now();
+
+                return statisticsCache.get(userId, "heatmap",
+                                () -> dailyStatsIndexCache.getOrLoad(userId).heatmap(year, today), year, today);
         }
 
-        public StatisticsDtos.BrandStatisticsResponse getBrandStatistics(
-                        String username, LocalDate startDate, LocalDate endDate) {
-                User user = userRepository.findByUsername(username)
-                                .orElseThrow(() -> new RuntimeException("用户不存在"));
+        /**
+         * 每条曲线最多 maxPoints 个点，未指定时取 app.statistics.trends.default-max-points：
+         * downsample 为 coarsen（默认）时逐级放大分组粒度，放大到按年仍超过时返回 400；
+         * 为 lttb 时保持粒度并用 LTTB 降采样。
+         */
+        public StatisticsDtos.TrendsResponse getTrends(
+                        Long userId, LocalDate startDate, LocalDate endDate, String groupBy,
+                        Integer maxPoints, String downsample) {
+                LocalDate start = startDate != null ? startDate : LocalDate.now().minusDays(30);
+                LocalDate end = endDate != null ? endDate : LocalDate.now();
+                String period = groupBy != null ? groupBy.toLowerCase(Locale.ROOT) : "day";
+                String mode = downsample != null ? downsample.toLowerCase(Locale.ROOT) : "coarsen";
+                int points = resolveMaxPoints(maxPoints);
+
+                return statisticsCache.get(userId, "trends",
+                                () -> computeTrends(userId, start, end, period, points, mode),
+                                start, end, period, points, mode);
+        }
 
-                if (startDate == null) {
-                        startDate = LocalDate.now().minusMonths(1);
-                }
-                if (endDate == null) {
-                        endDate = LocalDate.now();
+        public StatisticsDtos.DistributionResponse getDistribution(
+                        Long userId, LocalDate startDate, LocalDate endDate) {
+                LocalDate start = startDate != null ? startDate : LocalDate.now().minusMonths(1);
+                LocalDate end = endDate != null ? endDate : LocalDate.now();
+
+                return statisticsCache.get(userId, "distribution", () -> computeDistribution(userId, start, end),
+                                start, end);
+        }
+
+        /**
+         * 仪表盘一次返回基础统计、品牌统计、趋势与日历。
+         * 只读取一次覆盖统计周期与日历月份的品牌每日汇总，在一次遍历中累加全部结果。
+         */
+        public StatisticsDtos.DashboardResponse getDashboard(
+                        Long userId, LocalDate startDate, LocalDate endDate, String groupBy,
+                        Integer maxPoints, String downsample, Integer year, Integer month) {
+                LocalDate start = startDate != null ? startDate : LocalDate.now().minusMonths(1);
+                LocalDate end = endDate != null ? endDate : LocalDate.now();
+                String period = groupBy != null ? groupBy.toLowerCase(Locale.ROOT) : "day";
+                String mode = downsample != null ? downsample.toLowerCase(Locale.ROOT) : "coarsen";
+                YearMonth calendarMonth = year != null && month != null ? YearMonth.of(year, month) : YearMonth.from(end);
+                int points = resolveMaxPoints(maxPoints);
+
+                return statisticsCache.get(userId, "dashboard",
+                                () -> computeDashboard(userId, start, end, period, points, mode, calendarMonth),
+                                start, end, period, points, mode, calendarMonth);
+        }
+
+        private StatisticsDtos.SummaryResponse computeSummary(Long userId, LocalDate startDate, LocalDate endDate) {
+                DailyStatsIndex index = dailyStatsIndexCache.get(userId);
+                if (index != null) {
+                        return index.summarize(startDate, endDate);
                 }
 
-                List<MilkTeaRecord> records = recordRepository.findByUserAndConsumeDateBetweenOrderByConsumeDateDesc(
-                                user, startDate, endDate);
-
-                long totalCount = records.size();
-
-                Map<Long, List<MilkTeaRecord>> groupedByBrand = records.stream()
-                                .collect(Collectors.groupingBy(r -> r.getBrand().getId()));
-
-                List<StatisticsDtos.BrandStatistics> statistics = groupedByBrand.entrySet().stream()
-                                .map(entry -> {
-                                        List<MilkTeaRecord> brandRecords = entry.getValue();
-                                        Long brandId = entry.getKey();
-                                        String brandName = brandRecords.get(0).getBrand().getName();
-                                        long count = brandRecords.size();
-
-                                        BigDecimal amount = brandRecords.stream()
-                                                        .map(MilkTeaRecord::getPrice)
-                                                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                                        double averageRating = brandRecords.stream()
-                                                        .mapToInt(MilkTeaRecord::getRating)
-                                                        .average()
-                                                        .orElse(0.0);
-
-                                        double percentage = totalCount > 0
-                                                        ? (double) count / totalCount * 100
-                                                        : 0.0;
-
-                                        return new StatisticsDtos.BrandStatistics(
-                                                        brandId,
-                                                        brandName,
-                                                        count,
-                                                        amount,
-                                                        averageRating,
-                                                        percentage);
-                                })
-                                .sorted(Comparator.comparing(StatisticsDtos.BrandStatistics::getCount).reversed())
-                                .collect(Collectors.toList());
-
-                return new StatisticsDtos.BrandStatisticsResponse(statistics, startDate, endDate);
+                UserDailyStatsRepository.RangeSummary summary = dailyStatsRepository
+                                .summarize(userId, startDate, endDate);
+
+                return StatisticsKernel.summaryOf(
+                                summary.getTotalCups() != null ? summary.getTotalCups() : 0L,
+                                summary.getTotalDays(),
+                                summary.getAmountCents() != null ? summary.getAmountCents() : 0L,
+                                summary.getRatingSum() != null ? summary.getRatingSum() : 0L,
+                                summary.getMinPriceCents(),
+                                summary.getMaxPriceCents(),
+                                startDate,
+                                endDate);
         }
 
-        public StatisticsDtos.CalendarMonthResponse getCalendarData(String username, int year, int month) {
-                User user = userRepository.findByUsername(username)
-                                .orElseThrow(() -> new RuntimeException("用户不存在"));
+        private StatisticsDtos.BrandStatisticsResponse computeBrandStatistics(
+                        Long userId, LocalDate startDate, LocalDate endDate) {
+                StatisticsKernel kernel = new StatisticsKernel(startDate, endDate);
+                for (UserDailyBrandStatsRepository.BrandSummary group : dailyBrandStatsRepository
+                                .summarizeByBrand(userId, startDate, endDate)) {
+                        kernel.addBrand(group.getBrandId(), group.getBrandName(),
+                                        group.getCount(), group.getAmountCents(), group.getRatingSum());
+                }
 
-                List<MilkTeaRecord> records = recordRepository.findByUserAndYearAndMonth(user, year, month);
+                return kernel.toBrandStatistics(startDate, endDate);
+        }
 
+        private StatisticsDtos.CalendarMonthResponse computeCalendarData(Long userId, int year, int month) {
                 YearMonth yearMonth = YearMonth.of(year, month);
-                int daysInMonth = yearMonth.lengthOfMonth();
-
-                Map<LocalDate, List<MilkTeaRecord>> recordsByDate = records.stream()
-                                .collect(Collectors.groupingBy(MilkTeaRecord::getConsumeDate));
-
-                List<StatisticsDtos.CalendarDay> days = new ArrayList<>();
-                for (int day = 1; day <= daysInMonth; day++) {
-                        LocalDate date = LocalDate.of(year, month, day);
-                        List<MilkTeaRecord> dayRecords = recordsByDate.getOrDefault(date, Collections.emptyList());
-
-                        int count = dayRecords.size();
-                        BigDecimal amount = dayRecords.stream()
-                                        .map(MilkTeaRecord::getPrice)
-                                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                        days.add(new StatisticsDtos.CalendarDay(
-                                        date,
-                                        count,
-                                        amount,
-                                        !dayRecords.isEmpty()));
-                }
+                LocalDate firstDay = yearMonth.atDay(1);
+                StatisticsKernel kernel = new StatisticsKernel(firstDay, yearMonth.atEndOfMonth())
+                                .withCalendar(yearMonth);
 
-                long totalCups = records.size();
-                BigDecimal totalAmount = records.stream()
-                                .map(MilkTeaRecord::getPrice)
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
-                long consumeDays = recordsByDate.size();
+                // 半开区间 [本月1日, 下月1日) 直接走 (user_id, consume_date) 索引，只返回有消费的日期
+                dailyStatsRepository.scanDays(userId, firstDay, yearMonth.plusMonths(1).atDay(1), kernel);
 
-                return new StatisticsDtos.CalendarMonthResponse(
-                                year,
-                                month,
-                                days,
-                                totalCups,
-                                totalAmount,
-                                consumeDays);
+                return kernel.toCalendar();
         }
 
-        public StatisticsDtos.TrendsResponse getTrends(
-                        String username, LocalDate startDate, LocalDate endDate, String groupBy) {
-                User user = userRepository.findByUsername(username)
-                                .orElseThrow(() -> new RuntimeException("用户不存在"));
-
-                if (startDate == null) {
-                        startDate = LocalDate.now().minusDays(30);
-                }
-                if (endDate == null) {
-                        endDate = LocalDate.now();
-                }
-                if (groupBy == null) {
-                        groupBy = "day";
+        private StatisticsDtos.TrendsResponse computeTrends(
+                        Long userId, LocalDate startDate, LocalDate endDate, String groupBy,
+                        int maxPoints, String downsample) {
+                TrendBucketer bucketer = trendBucketer(startDate, endDate, groupBy, maxPoints, downsample);
+                StatisticsKernel kernel = new StatisticsKernel(startDate, endDate).withTrends(bucketer);
+
+                DailyStatsIndex index = dailyStatsIndexCache.get(userId);
+                if (index != null) {
+                        index.addTrends(bucketer, startDate, endDate, kernel);
+                } else {
+                        dailyStatsRepository.scanDays(userId, startDate, endDate.plusDays(1), kernel);
                 }
 
-                List<MilkTeaRecord> records = recordRepository.findByUserAndConsumeDateBetweenOrderByConsumeDateDesc(
-                                user, startDate, endDate);
-
-                // Group records by date period based on groupBy
-                Map<String, List<MilkTeaRecord>> groupedRecords = new LinkedHashMap<>();
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-
-                // Initialize all periods with empty lists
-                LocalDate current = startDate;
-                while (!current.isAfter(endDate)) {
-                        String key;
-                        if ("week".equals(groupBy)) {
-                                // Use Monday as the start of week
-                                LocalDate monday = current
-                                                .with(TemporalAdjusters.previousOrSame(java.time.DayOfWeek.MONDAY));
-                                key = monday.format(formatter);
-                        } else if ("month".equals(groupBy)) {
-                                key = current.format(DateTimeFormatter.ofPattern("yyyy-MM")) + "-01";
-                        } else { // day
-                                key = current.format(formatter);
-                        }
-                        groupedRecords.putIfAbsent(key, new ArrayList<>());
-
-                        // Move to next period
-                        if ("week".equals(groupBy)) {
-                                current = current.plusWeeks(1);
-                        } else if ("month".equals(groupBy)) {
-                                current = current.plusMonths(1);
-                        } else {
-                                current = current.plusDays(1);
-                        }
-                }
+                return kernel.toTrends(startDate.format(DAY_FORMATTER), endDate.format(DAY_FORMATTER), maxPoints);
+        }
 
-                // Fill records into groups
-                for (MilkTeaRecord record : records) {
-                        LocalDate date = record.getConsumeDate();
-                        String key;
-                        if ("week".equals(groupBy)) {
-                                LocalDate monday = date
-                                                .with(TemporalAdjusters.previousOrSame(java.time.DayOfWeek.MONDAY));
-                                key = monday.format(formatter);
-                        } else if ("month".equals(groupBy)) {
-                                key = date.format(DateTimeFormatter.ofPattern("yyyy-MM")) + "-01";
-                        } else {
-                                key = date.format(formatter);
+        private StatisticsDtos.DashboardResponse computeDashboard(
+                        Long userId, LocalDate startDate, LocalDate endDate, String groupBy,
+                        int maxPoints, String downsample, YearMonth calendarMonth) {
+                LocalDate monthStart = calendarMonth.atDay(1);
+                LocalDate monthEnd = calendarMonth.atEndOfMonth();
+                LocalDate fetchStart = startDate.isBefore(monthStart) ? startDate : monthStart;
+                LocalDate fetchEnd = endDate.isAfter(monthEnd) ? endDate : monthEnd;
+
+                StatisticsKernel kernel = new StatisticsKernel(startDate, endDate)
+                                .withTrends(trendBucketer(startDate, endDate, groupBy, maxPoints, downsample))
+                                .withCalendar(calendarMonth);
+
+                // 只读取一次覆盖统计周期与日历月份的品牌每日汇总，一次遍历累加全部结果
+                dailyBrandStatsRepository.scanDayBrandRows(userId, fetchStart, fetchEnd.plusDays(1), kernel);
+
+                return new StatisticsDtos.DashboardResponse(
+                                kernel.toSummary(startDate, endDate),
+                                kernel.toBrandStatistics(startDate, endDate),
+                                kernel.toTrends(startDate.format(DAY_FORMATTER), endDate.format(DAY_FORMATTER), maxPoints),
+                                kernel.toCalendar());
+        }
+
+        /**
+         * 合并统计周期内的每日分布草图，不读取原始记录。
+         */
+        private StatisticsDtos.DistributionResponse computeDistribution(
+                        Long userId, LocalDate startDate, LocalDate endDate) {
+                long[] ratingCounts = new long[11];
+                List<StatisticsDtos.DistributionBucket> sweetness = new ArrayList<>();
+                List<StatisticsDtos.DistributionBucket> iceLevels = new ArrayList<>();
+                PriceSketch prices = new PriceSketch();
+                long totalCups = 0;
+
+                for (UserDailyDistributionRepository.BucketCount bucket : dailyDistributionRepository
+                                .summarize(userId, startDate, endDate)) {
+                        switch (bucket.getDimension()) {
+                                case "rating":
+                                        ratingCounts[Integer.parseInt(bucket.getBucket())] += bucket.getCups();
+                                        totalCups += bucket.getCups();
+                                        break;
+                                case "sweetness":
+                                        sweetness.add(new StatisticsDtos.DistributionBucket(
+                                                        bucket.getBucket(), bucket.getCups(), 0.0));
+                                        break;
+                                case "ice_level":
+                                        iceLevels.add(new StatisticsDtos.DistributionBucket(
+                                                        bucket.getBucket(), bucket.getCups(), 0.0));
+                                        break;
+                                case "price":
+                                        prices.add(Integer.parseInt(bucket.getBucket()), bucket.getCups());
+                                        break;
+                                default:
+                                        break;
                         }
-                        groupedRecords.computeIfAbsent(key, k -> new ArrayList<>()).add(record);
                 }
 
-                // Build trend data points
-                List<StatisticsDtos.TrendDataPoint> cupsTrend = new ArrayList<>();
-                List<StatisticsDtos.TrendDataPoint> amountTrend = new ArrayList<>();
-
-                for (Map.Entry<String, List<MilkTeaRecord>> entry : groupedRecords.entrySet()) {
-                        String dateKey = entry.getKey();
-                        List<MilkTeaRecord> periodRecords = entry.getValue();
-
-                        long cupsCount = periodRecords.size();
-                        BigDecimal totalAmount = periodRecords.stream()
-                                        .map(MilkTeaRecord::getPrice)
-                                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                List<StatisticsDtos.DistributionBucket> ratings = new ArrayList<>(ratingCounts.length);
+                for (int rating = 0; rating < ratingCounts.length; rating++) {
+                        ratings.add(new StatisticsDtos.DistributionBucket(
+                                        String.valueOf(rating), ratingCounts[rating], 0.0));
+                }
+                fillPercentages(ratings, totalCups);
+                fillPercentages(sweetness, totalCups);
+                fillPercentages(iceLevels, totalCups);
+                Comparator<StatisticsDtos.DistributionBucket> byCount = Comparator
+                                .comparing(StatisticsDtos.DistributionBucket::getCount).reversed()
+                                .thenComparing(StatisticsDtos.DistributionBucket::getValue);
+                sweetness.sort(byCount);
+                iceLevels.sort(byCount);
+
+                // 最低、最高单价是精确值，用来约束分位数估计
+                StatisticsDtos.SummaryResponse summary = computeSummary(userId, startDate, endDate);
+                return new StatisticsDtos.DistributionResponse(
+                                totalCups,
+                                prices.quantile(0.5, summary.getMinPrice(), summary.getMaxPrice()),
+                                prices.quantile(0.9, summary.getMinPrice(), summary.getMaxPrice()),
+                                ratings,
+                                sweetness,
+                                iceLevels,
+                                startDate,
+                                endDate);
+        }
 
-                        cupsTrend.add(new StatisticsDtos.TrendDataPoint(dateKey, BigDecimal.valueOf(cupsCount)));
-                        amountTrend.add(new StatisticsDtos.TrendDataPoint(dateKey, totalAmount));
+        private static void fillPercentages(List<StatisticsDtos.DistributionBucket> buckets, long totalCups) {
+                for (StatisticsDtos.DistributionBucket bucket : buckets) {
+                        bucket.setPercentage(totalCups > 0 ? (double) bucket.getCount() / totalCups * 100 : 0.0);
                 }
+        }
 
-                StatisticsDtos.TrendSeries series = new StatisticsDtos.TrendSeries(cupsTrend, amountTrend);
+        private int resolveMaxPoints(Integer maxPoints) {
+                if (maxPoints == null) {
+                        return defaultMaxPoints;
+                }
+                if (maxPoints < 3) {
+                        throw new RuntimeException("maxPoints 不能小于 3");
+                }
+                if (maxPoints > maxPointsLimit) {
+                        throw new RuntimeException("maxPoints 不能大于 " + maxPointsLimit);
+                }
+                return maxPoints;
+        }
 
-                return new StatisticsDtos.TrendsResponse(
-                                groupBy,
-                                series,
-                                startDate.format(formatter),
-                                endDate.format(formatter));
+        private static TrendBucketer trendBucketer(
+                        LocalDate startDate, LocalDate endDate, String groupBy, int maxPoints, String downsample) {
+                TrendBucketer bucketer = TrendBucketer.of(groupBy, startDate, endDate);
+                if (!"coarsen".equals(downsample) && !"lttb".equals(downsample)) {
+                        throw new RuntimeException("不支持的降采样方式: " + downsample);
+                }
+                return "coarsen".equals(downsample) ? bucketer.coarsen(maxPoints) : bucketer;
         }
 }
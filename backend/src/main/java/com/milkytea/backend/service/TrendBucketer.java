@@ -0,0 +1,176 @@
+package com.milkytea.backend.service;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * 趋势分组：用整数运算把 epochDay 映射到分组下标，标签只在输出时按分组生成一次。
+ * 支持 day、week（周一为一周开始）、month、quarter、year，以及按星期几汇总的 weekday。
+ * 除 weekday 外，分组标签为该分组第一天的 yyyy-MM-dd（首尾分组可能早于开始日期），
+ * weekday 的标签为周一至周日。
+ */
+final class TrendBucketer {
+
+    private static final String[] WEEKDAY_LABELS = {"周一", "周二", "周三", "周四", "周五", "周六", "周日"};
+
+    private enum Granularity {
+        DAY, WEEK, MONTH, QUARTER, YEAR, WEEKDAY
+    }
+
+    private final Granularity granularity;
+    private final int startDay;
+    private final int endDay;
+    private final int firstPeriod;
+    private final int bucketCount;
+
+    private TrendBucketer(Granularity granularity, int startDay, int endDay) {
+        this.granularity = granularity;
+        this.startDay = startDay;
+        this.endDay = endDay;
+        this.firstPeriod = granularity == Granularity.WEEKDAY ? 0 : period(startDay);
+        // 结束日期早于开始日期时没有分组
+        this.bucketCount = granularity == Granularity.WEEKDAY ? 7 : Math.max(period(endDay) - firstPeriod + 1, 0);
+    }
+
+    static TrendBucketer of(String groupBy, LocalDate startDate, LocalDate endDate) {
+        Granularity granularity;
+        try {
+            granularity = Granularity.valueOf(groupBy.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("不支持的分组粒度: " + groupBy);
+        }
+        return new TrendBucketer(granularity, (int) startDate.toEpochDay(), (int) endDate.toEpochDay());
+    }
+
+    /**
+     * 分组数超过 maxPoints 时依次改用周、月、季度、年，返回第一个不超过 maxPoints 的粒度；
+     * weekday 固定 7 组，不调整。按年（或 weekday）仍超过时抛出异常，不丢弃任何分组。
+     */
+    TrendBucketer coarsen(int maxPoints) {
+        TrendBucketer current = this;
+        while (current.bucketCount > maxPoints && current.granularity.compareTo(Granularity.YEAR) < 0) {
+            Granularity coarser = Granularity.values()[current.granularity.ordinal() + 1];
+            current = new TrendBucketer(coarser, startDay, endDay);
+        }
+        if (current.bucketCount > maxPoints && current.granularity == Granularity.WEEKDAY) {
+            throw new RuntimeException("按星期几分组固定 7 个点，maxPoints 不能小于 7");
+        }
+        if (current.bucketCount > maxPoints) {
+            throw new RuntimeException("按 " + current.groupBy() + " 分组有 " + current.bucketCount
+                    + " 个点，超过 maxPoints(" + maxPoints + ")，请增大 maxPoints 或缩短日期范围");
+        }
+        return current;
+    }
+
+    /**
+     * 实际使用的分组粒度，取值同请求参数 groupBy。
+     */
+    String groupBy() {
+        return granularity.name().toLowerCase(Locale.ROOT);
+    }
+
+    int bucketCount() {
+        return bucketCount;
+    }
+
+    /**
+     * epochDay 需位于开始与结束日期之间。
+     */
+    int bucketOf(int epochDay) {
+        if (granularity == Granularity.WEEKDAY) {
+            return dayOfWeekIndex(epochDay);
+        }
+        return period(epochDay) - firstPeriod;
+    }
+
+    /**
+     * weekday 以外的分组均为连续的日期区间。
+     */
+    boolean contiguous() {
+        return granularity != Granularity.WEEKDAY;
+    }
+
+    /**
+     * 连续分组第一天的 epochDay，首个分组可能早于开始日期。
+     */
+    int bucketStartDay(int bucket) {
+        int period = firstPeriod + bucket;
+        switch (granularity) {
+            case DAY:
+                return period;
+            case WEEK:
+                return period * 7 - 3;
+            case MONTH:
+                return (int) LocalDate.of(Math.floorDiv(period, 12), Math.floorMod(period, 12) + 1, 1).toEpochDay();
+            case QUARTER:
+                return (int) LocalDate.of(Math.floorDiv(period, 4), Math.floorMod(period, 4) * 3 + 1, 1).toEpochDay();
+            case YEAR:
+                return (int) LocalDate.of(period, 1, 1).toEpochDay();
+            default:
+                throw new IllegalStateException("weekday 分组不连续");
+        }
+    }
+
+    String label(int bucket) {
+        int period = firstPeriod + bucket;
+        switch (granularity) {
+            case DAY:
+                return LocalDate.ofEpochDay(period).toString();
+            case WEEK:
+                // 第 0 周从 1969-12-29（周一）开始
+                return LocalDate.ofEpochDay(period * 7L - 3).toString();
+            case MONTH:
+                return LocalDate.of(Math.floorDiv(period, 12), Math.floorMod(period, 12) + 1, 1).toString();
+            case QUARTER:
+                return LocalDate.of(Math.floorDiv(period, 4), Math.floorMod(period, 4) * 3 + 1, 1).toString();
+            case YEAR:
+                return LocalDate.of(period, 1, 1).toString();
+            default:
+                return WEEKDAY_LABELS[bucket];
+        }
+    }
+
+    /**
+     * 把 epochDay 换算为所属分组的连续编号，相邻分组编号相差 1。
+     */
+    private int period(int epochDay) {
+        switch (granularity) {
+            case DAY:
+                return epochDay;
+            case WEEK:
+                // 1970-01-01 是周四，加 3 天后按 7 取整即以周一为界
+                return Math.floorDiv(epochDay + 3, 7);
+            case MONTH:
+                return monthIndex(epochDay);
+            case QUARTER:
+                return Math.floorDiv(monthIndex(epochDay), 3);
+            case YEAR:
+                return Math.floorDiv(monthIndex(epochDay), 12);
+            default:
+                return dayOfWeekIndex(epochDay);
+        }
+    }
+
+    /**
+     * 0 为周一，6 为周日。
+     */
+    private static int dayOfWeekIndex(int epochDay) {
+        return Math.floorMod(epochDay + 3, 7);
+    }
+
+    /**
+     * 返回 年 * 12 + (月 - 1)，按公历纪年换算，不创建 LocalDate。
+     */
+    static int monthIndex(int epochDay) {
+        // 以 0000-03-01 为起点，每 400 年 146097 天
+        int z = epochDay + 719468;
+        int era = Math.floorDiv(z, 146097);
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 12 + month - 1;
+    }
+}
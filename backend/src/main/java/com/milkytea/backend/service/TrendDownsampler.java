@@ -0,0 +1,63 @@
+package com.milkytea.backend.service;
+
+/**
+ * 趋势降采样：Largest-Triangle-Three-Buckets (LTTB)。
+ * 保留首尾两点，其余点按顺序均分为 threshold - 2 组，每组保留与前一保留点、下一组均值点
+ * 构成三角形面积最大的点，从而在点数受限时保留峰值与拐点。
+ */
+final class TrendDownsampler {
+
+    private TrendDownsampler() {
+    }
+
+    /**
+     * 返回保留点的下标（升序），values.length 不超过 threshold 时全部保留。
+     */
+    static int[] lttb(double[] values, int threshold) {
+        int length = values.length;
+        if (threshold >= length || threshold < 3) {
+            int[] all = new int[length];
+            for (int i = 0; i < length; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] kept = new int[threshold];
+        kept[0] = 0;
+        kept[threshold - 1] = length - 1;
+        double groupSize = (double) (length - 2) / (threshold - 2);
+        int previous = 0;
+
+        for (int group = 0; group < threshold - 2; group++) {
+            // 下一组的均值点，最后一组时即为末尾点
+            int nextStart = (int) ((group + 1) * groupSize) + 1;
+            int nextEnd = Math.min((int) ((group + 2) * groupSize) + 1, length);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += i;
+                averageY += values[i];
+            }
+            averageX /= nextEnd - nextStart;
+            averageY /= nextEnd - nextStart;
+
+            int start = (int) (group * groupSize) + 1;
+            int end = (int) ((group + 1) * groupSize) + 1;
+            double previousY = values[previous];
+            double maxArea = -1;
+            int selected = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((previous - averageX) * (values[i] - previousY)
+                        - (previous - i) * (averageY - previousY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    selected = i;
+                }
+            }
+            kept[group + 1] = selected;
+            previous = selected;
+        }
+        return kept;
+    }
+}
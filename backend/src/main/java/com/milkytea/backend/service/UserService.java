@@ -2,12 +2,18 @@ package com.milkytea.backend.service;
 
 import com.milkytea.backend.dto.UserDtos;
 import com.milkytea.backend.entity.User;
+import com.milkytea.backend.event.TokenVersionChangedEvent;
 import com.milkytea.backend.repository.UserRepository;
+import com.milkytea.backend.security.PasswordHasher;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -15,9 +21,12 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PasswordHasher passwordHasher;
+    private final TransactionTemplate transactionTemplate;
 
-    public UserDtos.UserProfileResponse getUserProfile(String username) {
-        User user = userRepository.findByUsername(username)
+    public UserDtos.UserProfileResponse getUserProfile(Long userId) {
+        User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UsernameNotFoundException("用户不存在"));
 
         return new UserDtos.UserProfileResponse(
@@ -30,8 +39,8 @@ public class UserService {
     }
 
     @Transactional
-    public UserDtos.UserProfileResponse updateUserProfile(String username, UserDtos.UpdateProfileRequest request) {
-        User user = userRepository.findByUsername(username)
+    public UserDtos.UserProfileResponse updateUserProfile(Long userId, UserDtos.UpdateProfileRequest request) {
+        User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UsernameNotFoundException("用户不存在"));
 
         // 如果修改手机号,检查手机号是否已被使用
@@ -58,9 +67,10 @@ public class UserService {
     }
 
     @Transactional
-    public UserDtos.UserProfileResponse updateUsername(String currentUsername, UserDtos.UpdateUsernameRequest request) {
-        User user = userRepository.findByUsername(currentUsername)
+    public UserDtos.UserProfileResponse updateUsername(Long userId, UserDtos.UpdateUsernameRequest request) {
+        User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UsernameNotFoundException("用户不存在"));
+        String currentUsername = user.getUsername();
 
         // 检查新用户名是否已被使用
         if (!request.getNewUsername().equals(currentUsername) &&
@@ -68,7 +78,10 @@ public class UserService {
             throw new RuntimeException("用户名已存在");
         }
 
-        user.setUsername(request.getNewUsername());
+        if (!request.getNewUsername().equals(currentUsername)) {
+            user.setUsername(request.getNewUsername());
+            revokeTokens(user);
+        }
         user = userRepository.save(user);
 
         return new UserDtos.UserProfileResponse(
@@ -80,18 +93,43 @@ public class UserService {
                 user.getUpdatedAt());
     }
 
-    @Transactional
-    public void changePassword(String username, UserDtos.ChangePasswordRequest request) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("用户不存在"));
-
-        // 验证旧密码
-        if (!passwordEncoder.matches(request.getOldPassword(), user.getPassword())) {
-            throw new RuntimeException("旧密码不正确");
-        }
+    /**
+     * 校验旧密码与哈希新密码在 {@link PasswordHasher} 的线程池中执行，随后在同一线程以新事务保存。
+     */
+    public CompletableFuture<Void> changePassword(Long userId, UserDtos.ChangePasswordRequest request) {
+        return passwordHasher.submit("change-password", () -> {
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new UsernameNotFoundException("用户不存在"));
+            String oldEncodedPassword = user.getPassword();
+
+            // 验证旧密码
+            if (!passwordEncoder.matches(request.getOldPassword(), oldEncodedPassword)) {
+                throw new RuntimeException("旧密码不正确");
+            }
+            String encodedPassword = passwordEncoder.encode(request.getNewPassword());
+
+            transactionTemplate.executeWithoutResult(status -> {
+                User current = userRepository.findById(userId)
+                        .orElseThrow(() -> new UsernameNotFoundException("用户不存在"));
+                // 校验期间密码已被其他请求修改时，不能用已校验过的旧密码覆盖
+                if (!current.getPassword().equals(oldEncodedPassword)) {
+                    throw new RuntimeException("密码已被修改，请重试");
+                }
+
+                // 设置新密码
+                current.setPassword(encodedPassword);
+                revokeTokens(current);
+                userRepository.save(current);
+            });
+            return null;
+        });
+    }
 
-        // 设置新密码
-        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
-        userRepository.save(user);
+    /**
+     * 令牌版本加一，此前签发的令牌在事务提交后失效。
+     */
+    private void revokeTokens(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        eventPublisher.publishEvent(new TokenVersionChangedEvent(user.getId()));
     }
 }
@@ -0,0 +1,41 @@
+-- 初始表结构，与此前 ddl-auto: update 生成的结构保持一致
+
+CREATE TABLE users (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username   VARCHAR(25)  NOT NULL,
+    phone      VARCHAR(11)  NOT NULL,
+    password   VARCHAR(255) NOT NULL,
+    avatar     TEXT,
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_phone UNIQUE (phone)
+);
+
+CREATE TABLE brands (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        VARCHAR(255) NOT NULL,
+    description VARCHAR(500),
+    logo_url    TEXT,
+    created_at  TIMESTAMP,
+    updated_at  TIMESTAMP,
+    CONSTRAINT uk_brands_name UNIQUE (name)
+);
+
+CREATE TABLE milk_tea_records (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id      BIGINT         NOT NULL,
+    brand_id     BIGINT         NOT NULL,
+    category     VARCHAR(255)   NOT NULL,
+    sweetness    VARCHAR(255)   NOT NULL,
+    ice_level    VARCHAR(255)   NOT NULL,
+    price        NUMERIC(10, 2) NOT NULL,
+    rating       INTEGER        NOT NULL,
+    comment      VARCHAR(500),
+    consume_date DATE           NOT NULL,
+    created_at   TIMESTAMP,
+    updated_at   TIMESTAMP,
+    CONSTRAINT ck_records_rating CHECK (rating >= 0 AND rating <= 10),
+    CONSTRAINT fk_records_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_records_brand FOREIGN KEY (brand_id) REFERENCES brands (id)
+);
@@ -0,0 +1,9 @@
+-- 记录表的热点查询都以 user_id + consume_date 过滤，按品牌筛选时再加 brand_id
+
+-- 列表、键集分页与按日期范围的统计
+CREATE INDEX IF NOT EXISTS idx_records_user_date_id
+    ON milk_tea_records (user_id, consume_date DESC, id DESC);
+
+-- 按品牌筛选与品牌统计
+CREATE INDEX IF NOT EXISTS idx_records_user_brand_date
+    ON milk_tea_records (user_id, brand_id, consume_date);
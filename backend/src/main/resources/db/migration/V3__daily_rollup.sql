@@ -0,0 +1,38 @@
+-- 按 (用户, 消费日期) 预聚合的统计表，记录增删改时在同一事务内重算受影响的日期
+-- 金额以分为单位存储，累加时没有精度误差
+
+CREATE TABLE user_daily_stats (
+    user_id         BIGINT  NOT NULL,
+    consume_date    DATE    NOT NULL,
+    cups            INTEGER NOT NULL,
+    amount_cents    BIGINT  NOT NULL,
+    rating_sum      BIGINT  NOT NULL,
+    min_price_cents BIGINT  NOT NULL,
+    max_price_cents BIGINT  NOT NULL,
+    CONSTRAINT pk_user_daily_stats PRIMARY KEY (user_id, consume_date),
+    CONSTRAINT fk_daily_stats_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE user_daily_brand_stats (
+    user_id      BIGINT  NOT NULL,
+    consume_date DATE    NOT NULL,
+    brand_id     BIGINT  NOT NULL,
+    cups         INTEGER NOT NULL,
+    amount_cents BIGINT  NOT NULL,
+    rating_sum   BIGINT  NOT NULL,
+    CONSTRAINT pk_user_daily_brand_stats PRIMARY KEY (user_id, consume_date, brand_id),
+    CONSTRAINT fk_daily_brand_stats_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_daily_brand_stats_brand FOREIGN KEY (brand_id) REFERENCES brands (id)
+);
+
+-- 由已有记录回填
+INSERT INTO user_daily_stats (user_id, consume_date, cups, amount_cents, rating_sum, min_price_cents, max_price_cents)
+SELECT user_id, consume_date, COUNT(*), CAST(SUM(price) * 100 AS BIGINT), SUM(rating),
+       CAST(MIN(price) * 100 AS BIGINT), CAST(MAX(price) * 100 AS BIGINT)
+FROM milk_tea_records
+GROUP BY user_id, consume_date;
+
+INSERT INTO user_daily_brand_stats (user_id, consume_date, brand_id, cups, amount_cents, rating_sum)
+SELECT user_id, consume_date, brand_id, COUNT(*), CAST(SUM(price) * 100 AS BIGINT), SUM(rating)
+FROM milk_tea_records
+GROUP BY user_id, consume_date, brand_id;
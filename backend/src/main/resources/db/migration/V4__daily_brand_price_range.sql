@@ -0,0 +1,13 @@
+-- 品牌每日汇总补充最低、最高单价，仪表盘只需读取这一张表即可得到全部统计
+
+ALTER TABLE user_daily_brand_stats ADD COLUMN min_price_cents BIGINT;
+ALTER TABLE user_daily_brand_stats ADD COLUMN max_price_cents BIGINT;
+
+UPDATE user_daily_brand_stats s
+SET min_price_cents = (SELECT CAST(MIN(r.price) * 100 AS BIGINT) FROM milk_tea_records r
+                       WHERE r.user_id = s.user_id AND r.consume_date = s.consume_date AND r.brand_id = s.brand_id),
+    max_price_cents = (SELECT CAST(MAX(r.price) * 100 AS BIGINT) FROM milk_tea_records r
+                       WHERE r.user_id = s.user_id AND r.consume_date = s.consume_date AND r.brand_id = s.brand_id);
+
+ALTER TABLE user_daily_brand_stats ALTER COLUMN min_price_cents SET NOT NULL;
+ALTER TABLE user_daily_brand_stats ALTER COLUMN max_price_cents SET NOT NULL;
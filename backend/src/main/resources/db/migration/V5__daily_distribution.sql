@@ -0,0 +1,31 @@
+-- 每日分布草图：按 (用户, 消费日期, 维度, 桶) 记录杯数，任意日期区间的分布按桶求和即可合并
+-- 维度 rating 的桶为评分 0-10；sweetness、ice_level 的桶为原值；
+-- price 的桶为 DDSketch 下标：单价(分)为 0 时为 0，否则为 CEILING(LN(分) / LN(1.01 / 0.99)) + 1，相对误差不超过 1%
+
+CREATE TABLE user_daily_distribution (
+    user_id      BIGINT       NOT NULL,
+    consume_date DATE         NOT NULL,
+    dimension    VARCHAR(16)  NOT NULL,
+    bucket       VARCHAR(255) NOT NULL,
+    cups         INTEGER      NOT NULL,
+    CONSTRAINT pk_user_daily_distribution PRIMARY KEY (user_id, consume_date, dimension, bucket),
+    CONSTRAINT fk_daily_distribution_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+-- 由已有记录回填
+INSERT INTO user_daily_distribution (user_id, consume_date, dimension, bucket, cups)
+SELECT user_id, consume_date, 'rating', CAST(rating AS VARCHAR), COUNT(*)
+FROM milk_tea_records GROUP BY user_id, consume_date, rating
+UNION ALL
+SELECT user_id, consume_date, 'sweetness', sweetness, COUNT(*)
+FROM milk_tea_records GROUP BY user_id, consume_date, sweetness
+UNION ALL
+SELECT user_id, consume_date, 'ice_level', ice_level, COUNT(*)
+FROM milk_tea_records GROUP BY user_id, consume_date, ice_level
+UNION ALL
+SELECT user_id, consume_date, 'price', bucket, COUNT(*)
+FROM (SELECT user_id, consume_date,
+             CASE WHEN price <= 0 THEN '0'
+                  ELSE CAST(CAST(CEILING(LN(price * 100) / LN(1.01 / 0.99)) AS INTEGER) + 1 AS VARCHAR) END AS bucket
+      FROM milk_tea_records) p
+GROUP BY user_id, consume_date, bucket;
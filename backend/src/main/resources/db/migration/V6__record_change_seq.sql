@@ -0,0 +1,23 @@
+-- 增量同步：每个用户一个单调递增的变更序号，记录的新增与修改写入 change_seq，删除写入墓碑表
+-- 序号只要求同一用户内递增，允许不连续；存量记录直接以 id 作为序号
+
+ALTER TABLE users ADD COLUMN record_change_seq BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE milk_tea_records ADD COLUMN change_seq BIGINT;
+UPDATE milk_tea_records SET change_seq = id;
+ALTER TABLE milk_tea_records ALTER COLUMN change_seq SET NOT NULL;
+
+UPDATE users u
+SET record_change_seq = COALESCE((SELECT MAX(r.change_seq) FROM milk_tea_records r WHERE r.user_id = u.id), 0);
+
+CREATE INDEX IF NOT EXISTS idx_records_user_change_seq
+    ON milk_tea_records (user_id, change_seq);
+
+CREATE TABLE record_tombstones (
+    user_id    BIGINT    NOT NULL,
+    change_seq BIGINT    NOT NULL,
+    record_id  BIGINT    NOT NULL,
+    deleted_at TIMESTAMP NOT NULL,
+    CONSTRAINT pk_record_tombstones PRIMARY KEY (user_id, change_seq),
+    CONSTRAINT fk_record_tombstones_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
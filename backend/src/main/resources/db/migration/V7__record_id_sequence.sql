@@ -0,0 +1,9 @@
+-- 记录 ID 改由序列分配，Hibernate 以 pooled 方式每次取 50 个，批量导入时可以合并插入语句
+-- pooled 把序列值视为一段 ID 的上界（该值减 49 至该值），因此从现有最大 ID 加 50 开始
+
+CREATE SEQUENCE milk_tea_records_seq START WITH 50 INCREMENT BY 50;
+ALTER SEQUENCE milk_tea_records_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM milk_tea_records);
+
+-- 不经 Hibernate 插入的记录也从序列取值，不会与已分配的 ID 冲突
+ALTER TABLE milk_tea_records ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE milk_tea_records ALTER COLUMN id SET DEFAULT NEXT VALUE FOR milk_tea_records_seq;
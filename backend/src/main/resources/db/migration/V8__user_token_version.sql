@@ -0,0 +1,3 @@
+-- 令牌版本：签发令牌时写入 tokenVersion 声明，修改密码或用户名时加一，旧版本的令牌随即失效
+
+ALTER TABLE users ADD COLUMN token_version INT DEFAULT 0 NOT NULL;
@@ -17,6 +17,52 @@ export async function getRecords({ date, startDate, endDate, brandId, category,
   return await request(path, { method: 'GET' })
 }
 
+// 增量获取变更序号大于 since 的新增、修改和删除
+export async function getRecordChanges({ since = 0, limit } = {}) {
+  let path = `/api/records/changes?since=${since}`
+  if (limit) path += `&limit=${limit}`
+  return await request(path, { method: 'GET' })
+}
+
+const SYNC_KEY_PREFIX = 'milkytea_records_sync_'
+
+// 同步全部记录：本地缓存上次结果与 nextSince，之后只拉取增量，顺序同 getRecords
+export async function syncRecords(userKey) {
+  const storageKey = SYNC_KEY_PREFIX + userKey
+  let cached = null
+  try { cached = JSON.parse(localStorage.getItem(storageKey)) } catch (e) { }
+
+  const byId = new Map()
+  let since = 0
+  if (cached && Array.isArray(cached.records)) {
+    cached.records.forEach(record => byId.set(record.id, record))
+    since = cached.since || 0
+  }
+
+  let page
+  try {
+    page = await getRecordChanges({ since })
+  } catch (e) {
+    if (since === 0) throw e
+    // 序号失效时（如服务端数据重建）退回全量同步
+    byId.clear()
+    since = 0
+    page = await getRecordChanges({ since })
+  }
+  while (true) {
+    page.upserts.forEach(record => byId.set(record.id, record))
+    page.deleted.forEach(item => byId.delete(item.id))
+    since = page.nextSince
+    if (!page.hasMore) break
+    page = await getRecordChanges({ since })
+  }
+
+  const records = Array.from(byId.values()).sort((a, b) =>
+    a.consumeDate === b.consumeDate ? b.id - a.id : (a.consumeDate < b.consumeDate ? 1 : -1))
+  try { localStorage.setItem(storageKey, JSON.stringify({ since, records })) } catch (e) { }
+  return records
+}
+
 // 创建奶茶记录
 export async function createRecord(recordData) {
   // 转换前端字段到后端字段
@@ -59,6 +105,15 @@ export async function updateRecord(id, recordData) {
   })
 }
 
+// 批量导入记录，content 为 CSV 文本或记录数组的 JSON 文本，返回导入条数与失败行
+export async function importRecords(content, format = 'csv') {
+  return await request('/api/records/import', {
+    method: 'POST',
+    body: content,
+    headers: { 'Content-Type': format === 'json' ? 'application/json' : 'text/csv' }
+  })
+}
+
 // 获取单个记录详情
 export async function getRecordDetail(id) {
   return await request(`/api/records/${id}`, { method: 'GET' })
@@ -71,8 +126,11 @@ export async function deleteRecord(id) {
 
 export default {
   getRecords,
+  getRecordChanges,
+  syncRecords,
   createRecord,
   updateRecord,
+  importRecords,
   getRecordDetail,
   deleteRecord
 }
@@ -20,13 +20,25 @@ export async function getBrandStats({ startDate, endDate } = {}) {
     return await request(path, { method: 'GET' })
 }
 
+// 获取分布统计（单价分位数、评分直方图、甜度与冰度分布）
+export async function getDistribution({ startDate, endDate } = {}) {
+    let path = '/api/statistics/distribution'
+    const params = []
+    if (startDate) params.push(`startDate=${encodeURIComponent(startDate)}`)
+    if (endDate) params.push(`endDate=${encodeURIComponent(endDate)}`)
+    if (params.length) path += `?${params.join('&')}`
+    return await request(path, { method: 'GET' })
+}
+
 // 获取趋势分析
-export async function getTrends({ startDate, endDate, groupBy = 'day' } = {}) {
+export async function getTrends({ startDate, endDate, groupBy = 'day', maxPoints, downsample } = {}) {
     let path = '/api/statistics/trends'
     const params = []
     if (startDate) params.push(`startDate=${encodeURIComponent(startDate)}`)
     if (endDate) params.push(`endDate=${encodeURIComponent(endDate)}`)
     if (groupBy) params.push(`groupBy=${groupBy}`)
+    if (maxPoints) params.push(`maxPoints=${maxPoints}`)
+    if (downsample) params.push(`downsample=${downsample}`)
     if (params.length) path += `?${params.join('&')}`
     return await request(path, { method: 'GET' })
 }
@@ -36,6 +48,25 @@ export async function getCalendarData(year, month) {
     return await request(`/api/statistics/calendar/${year}/${month}`, { method: 'GET' })
 }
 
+// 获取年度热力图（每日杯数与连续消费天数）
+export async function getHeatmap(year) {
+    return await request(`/api/statistics/heatmap/${year}`, { method: 'GET' })
+}
+
+// 获取仪表盘数据（基础统计、品牌统计、趋势与日历一次返回）
+export async function getDashboard({ startDate, endDate, groupBy = 'day', maxPoints, downsample, year, month } = {}) {
+    let path = '/api/statistics/dashboard'
+    const params = []
+    if (startDate) params.push(`startDate=${encodeURIComponent(startDate)}`)
+    if (endDate) params.push(`endDate=${encodeURIComponent(endDate)}`)
+    if (groupBy) params.push(`groupBy=${groupBy}`)
+    if (maxPoints) params.push(`maxPoints=${maxPoints}`)
+    if (downsample) params.push(`downsample=${downsample}`)
+    if (year && month) params.push(`year=${year}`, `month=${month}`)
+    if (params.length) path += `?${params.join('&')}`
+    return await request(path, { method: 'GET' })
+}
+
 // 兼容性方法 - 获取月度统计
 export async function getMonthlyStats(year, month) {
     return await getCalendarData(year, month)
@@ -44,7 +75,10 @@ export async function getMonthlyStats(year, month) {
 export default {
     getSummary,
     getBrandStats,
+    getDistribution,
     getTrends,
     getCalendarData,
+    getHeatmap,
+    getDashboard,
     getMonthlyStats
 }
@@ -1,3 +1,5 @@
+import { setToken } from './auth'
+
 const BASE_URL = import.meta.env.VITE_API_BASE_URL || 'http://localhost:8080'
 
 function getToken() {
@@ -15,6 +17,7 @@ const ERROR_MESSAGES = {
     403: '没有权限执行此操作',
     404: '请求的资源不存在',
     409: '数据冲突,请刷新后重试',
+    429: '请求过于频繁,请稍后再试',
     500: '服务器出错了,请稍后再试',
     502: '网络错误,请检查网络连接',
     503: '服务暂时不可用,请稍后再试'
@@ -102,8 +105,17 @@ async function request(path, options = {}) {
             err.status = res.status
             err.body = data
             err.originalMessage = serverMessage
+            // 429/503 时服务端通过 Retry-After 告知建议等待的秒数
+            const retryAfter = Number(res.headers.get('Retry-After'))
+            if (retryAfter > 0) err.retryAfter = retryAfter
             throw err
         }
+
+        // 修改用户名或密码后旧令牌失效，服务端通过 Authorization 响应头下发新令牌
+        const refreshedToken = res.headers.get('Authorization')
+        if (refreshedToken && refreshedToken.startsWith('Bearer ')) {
+            setToken(refreshedToken.slice(7))
+        }
         return data
     } catch (error) {
         // 网络错误